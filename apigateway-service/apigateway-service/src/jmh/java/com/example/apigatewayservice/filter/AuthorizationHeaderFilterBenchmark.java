@@ -0,0 +1,98 @@
+package com.example.apigatewayservice.filter;
+
+import com.example.apigatewayservice.security.JwtTokenVerifier;
+import com.example.apigatewayservice.security.RevokedTokens;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+인증이 필요한 요청 1건당 AuthorizationHeaderFilter 비용 측정
+ - perRequestParser: 기존 방식 (요청마다 키와 JwtParser를 생성하고 서명 검증)
+ - prebuiltParser: 미리 생성한 JwtParser로 서명 검증 (캐시 미적중)
+ - filterWithCachedToken: 검증된 토큰 캐시를 사용하는 필터 전체 (캐시 적중)
+실행: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthorizationHeaderFilterBenchmark {
+    private static final String SECRET =
+            "benchmark_token_secret_benchmark_token_secret_benchmark_token_secret_0123456789";
+
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    private String token;
+    private JwtTokenVerifier verifier;
+    private GatewayFilter filter;
+    // 필터는 인증에 성공한 요청을 변경하지 않으므로 같은 exchange를 재사용한다.
+    // (MockServerWebExchange 생성 비용이 측정값에 섞이지 않도록)
+    private MockServerWebExchange exchange;
+
+    @Setup
+    public void setup() {
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Collections.singletonMap("token.secret", SECRET)));
+
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = Jwts.builder()
+                .setSubject("5b2d6f3e-3b5a-4bde-8c1f-0d1c2a7e9f10")
+                .setId("0f8c3a52-7d4e-4c1b-9a6f-2e5d8b1c7a93")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+
+        verifier = new JwtTokenVerifier(env, new SimpleMeterRegistry());
+        RevokedTokens revokedTokens = new RevokedTokens(env, new SimpleMeterRegistry());
+        filter = new AuthorizationHeaderFilter(verifier, revokedTokens).apply(new AuthorizationHeaderFilter.Config());
+        exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/user-service/users")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    @Benchmark
+    public String perRequestParser() {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    @Benchmark
+    public Object prebuiltParser() {
+        return verifier.parse(token);
+    }
+
+    @Benchmark
+    public Object filterWithCachedToken() {
+        filter.filter(exchange, CHAIN).block();
+        return exchange.getResponse().getStatusCode();
+    }
+}
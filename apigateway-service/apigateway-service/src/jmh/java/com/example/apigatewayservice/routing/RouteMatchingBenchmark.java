@@ -0,0 +1,120 @@
+package com.example.apigatewayservice.routing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.gateway.handler.AsyncPredicate;
+import org.springframework.cloud.gateway.handler.predicate.MethodRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+라우트 수가 수백 개일 때 요청 1건의 라우트 조회 비용 측정
+서비스마다 application.yml의 user-service와 같은 형태의 라우트 3개(POST 로그인, GET 상세 조회, 나머지 전체)를 만든다.
+ - linearLookup: 기본 RoutePredicateHandlerMapping 방식 (모든 라우트의 predicate를 순서대로 실행)
+ - compiledLookup: RouteMatchTable로 후보를 고른 뒤 후보의 predicate만 실행
+ - rewriteRegex / rewriteCompiled: RewritePath(요청마다 replaceAll) / CompiledRewritePath
+요청 경로는 마지막 서비스의 상세 조회 (기본 방식에서 가장 늦게 찾는 라우트)
+실행: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouteMatchingBenchmark {
+    private static final String REGEXP = "/service-0/(?<segment>.*)";
+    private static final String REPLACEMENT = "/${segment}";
+
+    @Param({"30", "300"})
+    private int routeCount;
+
+    private List<Route> routes;
+    private RouteMatchTable table;
+    private CompiledRewritePath compiledRewritePath;
+    private ServerWebExchange exchange;
+    private String lastPath;
+
+    @Setup
+    public void setup() {
+        PathRoutePredicateFactory path = new PathRoutePredicateFactory();
+        MethodRoutePredicateFactory method = new MethodRoutePredicateFactory();
+
+        routes = new ArrayList<>();
+        List<RouteDefinition> definitions = new ArrayList<>();
+        for (int i = 0; i < routeCount / 3; i++) {
+            String service = "service-" + i;
+            String uri = "lb://" + service.toUpperCase();
+
+            add(routes, definitions, service, uri, "/" + service + "/login", HttpMethod.POST, path, method);
+            add(routes, definitions, service, uri, "/" + service + "/users/{userId}", HttpMethod.GET, path, method);
+            add(routes, definitions, service, uri, "/" + service + "/**", null, path, method);
+        }
+
+        table = RouteMatchTable.compile(routes, definitions);
+        compiledRewritePath = new CompiledRewritePath(REGEXP, REPLACEMENT);
+
+        lastPath = "/service-" + (routeCount / 3 - 1) + "/users/5b2d6f3e";
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get(lastPath));
+    }
+
+    private static void add(List<Route> routes, List<RouteDefinition> definitions, String id, String uri,
+                            String pattern, HttpMethod httpMethod, PathRoutePredicateFactory path,
+                            MethodRoutePredicateFactory method) {
+        AsyncPredicate<ServerWebExchange> predicate = path.applyAsync(
+                new PathRoutePredicateFactory.Config().setPatterns(Collections.singletonList(pattern)));
+        String text = id + "=" + uri + ",Path=" + pattern;
+        if (httpMethod != null) {
+            MethodRoutePredicateFactory.Config config = new MethodRoutePredicateFactory.Config();
+            config.setMethods(httpMethod);
+            predicate = predicate.and(method.applyAsync(config));
+            text += ",Method=" + httpMethod.name();
+        }
+
+        routes.add(Route.async().id(id).uri(URI.create(uri)).asyncPredicate(predicate).build());
+        definitions.add(new RouteDefinition(text));
+    }
+
+    @Benchmark
+    public Route linearLookup() {
+        return firstMatch(routes);
+    }
+
+    @Benchmark
+    public Route compiledLookup() {
+        return firstMatch(table.candidates(exchange.getRequest().getMethod(), lastPath));
+    }
+
+    @Benchmark
+    public String rewriteRegex() {
+        return "/service-0/users/5b2d6f3e".replaceAll(REGEXP, REPLACEMENT);
+    }
+
+    @Benchmark
+    public String rewriteCompiled() {
+        return compiledRewritePath.rewrite("/service-0/users/5b2d6f3e");
+    }
+
+    private Route firstMatch(List<Route> candidates) {
+        return Flux.fromIterable(candidates)
+                .concatMap(route -> Mono.just(route).filterWhen(r -> r.getPredicate().apply(exchange)))
+                .next()
+                .block();
+    }
+}
@@ -1,22 +1,19 @@
 package com.example.apigatewayservice;
 
+import com.example.apigatewayservice.security.TokenRevokedEvent;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.actuate.trace.http.HttpTraceRepository;
-import org.springframework.boot.actuate.trace.http.InMemoryHttpTraceRepository;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
 
 @SpringBootApplication
+// Spring Cloud Bus로 받을 사용자 정의 이벤트(user-service의 토큰 폐기)를 등록
+@RemoteApplicationEventScan(basePackageClasses = TokenRevokedEvent.class)
 public class ApigatewayServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(ApigatewayServiceApplication.class, args);
 	}
 
-	// actuator의 httptrace를 사용하기 위해 Bean 등록
-	// HTTP 요청과 응답의 추적정보를 저장하는 인터페이스
-	@Bean
-	public HttpTraceRepository httpTraceRepository() {
-		return new InMemoryHttpTraceRepository();
-	}
+	// 요청 추적은 httptrace(InMemoryHttpTraceRepository) 대신 trace.RequestTraceRepository를 사용
+	// (/actuator/requesttraces)
 }
@@ -0,0 +1,121 @@
+package com.example.apigatewayservice.aggregation;
+
+import com.example.apigatewayservice.security.TrustedHeaders;
+import com.example.apigatewayservice.security.VerifiedToken;
+import com.example.apigatewayservice.vo.ResponseDashboard;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+대시보드에 필요한 사용자 정보, 주문 목록, 상품 목록을 각 서비스에 동시에 요청해서 하나의 응답으로 합친다.
+기존에는 user-service가 order-service를 Feign으로 순서대로 호출한 뒤 클라이언트가 catalog-service를 따로 호출했지만,
+세 요청을 병렬로 보내므로 전체 응답 시간은 가장 느린 요청 하나의 응답 시간이 된다.
+ - 각 요청에는 별도의 제한 시간이 있고, 실패하거나 제한 시간을 넘긴 항목은 비워두고 partial로 표시한다.
+ - 사용자가 존재하지 않으면 404
+요청은 Load Balancer(PeakEwmaLoadBalancer)를 거쳐 lb://서비스 이름으로 보낸다.
+ */
+@Component
+@Slf4j
+public class DashboardAggregator {
+    private static final String USER = "user";
+    private static final String ORDERS = "orders";
+    private static final String CATALOGS = "catalogs";
+
+    WebClient webClient;
+
+    private final Duration userTimeout;
+    private final Duration ordersTimeout;
+    private final Duration catalogsTimeout;
+
+    public DashboardAggregator(WebClient.Builder webClientBuilder,
+                               LoadBalancedExchangeFilterFunction loadBalancedExchangeFilterFunction,
+                               Environment env) {
+        // WebClient.Builder Bean은 다른 곳(HedgingFilter)에서 인스턴스 주소로 직접 요청할 때도 사용하므로
+        // @LoadBalanced Builder를 Bean으로 등록하지 않고 여기서만 Load Balancer 필터를 추가한다.
+        this.webClient = webClientBuilder.clone()
+                .filter(loadBalancedExchangeFilterFunction)
+                .build();
+        this.userTimeout = env.getProperty("gateway.aggregation.timeout.user", Duration.class, Duration.ofSeconds(2));
+        this.ordersTimeout = env.getProperty("gateway.aggregation.timeout.orders", Duration.class, Duration.ofSeconds(2));
+        this.catalogsTimeout = env.getProperty("gateway.aggregation.timeout.catalogs", Duration.class, Duration.ofSeconds(1));
+    }
+
+    public Mono<ResponseDashboard> dashboard(VerifiedToken token) {
+        String userId = token.getSubject();
+
+        Map<String, Object> lookup = new LinkedHashMap<>();
+        lookup.put("userIds", Collections.singletonList(userId));
+        lookup.put("includeOrders", false);
+
+        // 주문 내역은 orders 요청으로 따로 가져오므로 user-service의 일괄 조회 API를 includeOrders=false로 호출
+        Mono<Optional<JsonNode>> user = branch(USER, userTimeout, webClient.post()
+                .uri("lb://USER-SERVICE/users/lookup")
+                .headers(headers -> trustedHeaders(headers, token))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(lookup));
+        Mono<Optional<JsonNode>> orders = branch(ORDERS, ordersTimeout, webClient.get()
+                .uri("lb://ORDER-SERVICE/order-service/{userId}/orders", userId)
+                .headers(headers -> trustedHeaders(headers, token)));
+        Mono<Optional<JsonNode>> catalogs = branch(CATALOGS, catalogsTimeout, webClient.get()
+                .uri("lb://CATALOG-SERVICE/catalog-service/catalogs"));
+
+        return Mono.zip(user, orders, catalogs).map(results -> {
+            ResponseDashboard dashboard = new ResponseDashboard();
+            List<String> failed = new ArrayList<>();
+
+            if (results.getT1().isPresent()) {
+                JsonNode users = results.getT1().get();
+                if (!users.isArray() || users.size() == 0)
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+                dashboard.setUser(users.get(0));
+            } else {
+                failed.add(USER);
+            }
+
+            results.getT2().ifPresentOrElse(dashboard::setOrders, () -> failed.add(ORDERS));
+            results.getT3().ifPresentOrElse(dashboard::setCatalogs, () -> failed.add(CATALOGS));
+
+            dashboard.setPartial(!failed.isEmpty());
+            dashboard.setFailed(failed.isEmpty() ? null : failed);
+            return dashboard;
+        });
+    }
+
+    // 요청 하나의 결과. 실패하거나 제한 시간을 넘기면 전체 응답을 실패시키지 않고 비어있는 값으로 대체
+    private Mono<Optional<JsonNode>> branch(String name, Duration timeout, WebClient.RequestHeadersSpec<?> request) {
+        return request.retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout)
+                .map(Optional::of)
+                .onErrorResume(ex -> {
+                    log.warn("Dashboard {} request failed: {}", name, ex.toString());
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    // AuthorizationHeaderFilter와 같이 토큰 대신 검증된 userId를 내부 헤더로 전달
+    private static void trustedHeaders(HttpHeaders headers, VerifiedToken token) {
+        headers.set(TrustedHeaders.USER_ID, token.getSubject());
+        headers.set(TrustedHeaders.TOKEN_EXPIRES, String.valueOf(token.getExpiresAt()));
+        if (token.getTokenId() != null)
+            headers.set(TrustedHeaders.TOKEN_ID, token.getTokenId());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.apigatewayservice.cache;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+
+/*
+Gateway 응답 캐시에 저장되는 응답 (상태 코드, 헤더, body)
+freshUntil이 지나면 오래된(stale) 응답이 되며, ETag가 있으면 upstream에 If-None-Match로 재검증한 뒤 다시 사용한다.
+ */
+@Getter
+public class CachedResponse {
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    // 저장(또는 재검증)된 시각과 신선도가 유지되는 시각 (epoch millis)
+    private final long storedAt;
+    private final long freshUntil;
+
+    public CachedResponse(int status, HttpHeaders headers, byte[] body, long storedAt, long freshUntil) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.etag = headers.getETag();
+        this.storedAt = storedAt;
+        this.freshUntil = freshUntil;
+    }
+
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    // upstream이 304 Not Modified로 응답한 경우 같은 body를 새 신선도로 다시 저장
+    public CachedResponse revalidated(long now, long freshnessMillis) {
+        return new CachedResponse(status, headers, body, now, now + freshnessMillis);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.apigatewayservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+ResponseCacheFilter가 사용하는 응답 저장소.
+전체 크기(body bytes 기준)를 max-bytes로 제한하고, 각 응답은 신선도가 끝나면 제거한다.
+ETag가 있는 응답은 재검증에 사용할 수 있도록 stale-retention 동안 더 보관한다.
+ */
+@Component
+public class ResponseCacheStore {
+    // 헤더 등 body 이외의 대략적인 메모리 사용량
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final Cache<String, CachedResponse> responses;
+    private final int maxEntryBytes;
+
+    @Autowired
+    public ResponseCacheStore(Environment env, MeterRegistry meterRegistry) {
+        this.maxEntryBytes = env.getProperty("gateway.response-cache.max-entry-bytes", Integer.class, 1024 * 1024);
+        long staleRetentionMillis = env.getProperty("gateway.response-cache.stale-retention", Duration.class,
+                Duration.ofMinutes(5)).toMillis();
+
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(env.getProperty("gateway.response-cache.max-bytes", Long.class, 64L * 1024 * 1024))
+                .weigher((String key, CachedResponse response) -> response.getBody().length + ENTRY_OVERHEAD_BYTES)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        long retention = response.getFreshUntil() - System.currentTimeMillis();
+                        if (response.getEtag() != null)
+                            retention += staleRetentionMillis;
+
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, retention));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "gateway.responses");
+    }
+
+    public CachedResponse get(String key) {
+        return responses.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        responses.put(key, response);
+    }
+
+    // 이 크기보다 큰 응답은 저장하지 않는다.
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.apigatewayservice.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+downstream 서비스별 VegasLimiter 저장소
+같은 서비스로 가는 라우트들은 하나의 limiter를 함께 사용한다.
+현재 limit과 처리 중인 요청 수는 gateway.concurrency.limit, gateway.concurrency.inflight{service} 지표로 노출한다.
+ */
+@Component
+public class ConcurrencyLimiters {
+    MeterRegistry meterRegistry;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long rttWindowNanos;
+
+    private final ConcurrentHashMap<String, VegasLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiters(Environment env, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = env.getProperty("gateway.concurrency-limit.initial-limit", Integer.class, 20);
+        this.minLimit = env.getProperty("gateway.concurrency-limit.min-limit", Integer.class, 5);
+        this.maxLimit = env.getProperty("gateway.concurrency-limit.max-limit", Integer.class, 500);
+        this.rttWindowNanos = env.getProperty("gateway.concurrency-limit.rtt-window", Duration.class,
+                Duration.ofSeconds(30)).toNanos();
+    }
+
+    public VegasLimiter limiter(String service) {
+        VegasLimiter limiter = limiters.get(service);
+        if (limiter == null)
+            limiter = limiters.computeIfAbsent(service, this::create);
+        return limiter;
+    }
+
+    private VegasLimiter create(String service) {
+        VegasLimiter limiter = new VegasLimiter(initialLimit, minLimit, maxLimit, rttWindowNanos);
+        Gauge.builder("gateway.concurrency.limit", limiter, VegasLimiter::getLimit)
+                .tag("service", service)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, VegasLimiter::getInflight)
+                .tag("service", service)
+                .register(meterRegistry);
+        return limiter;
+    }
+}
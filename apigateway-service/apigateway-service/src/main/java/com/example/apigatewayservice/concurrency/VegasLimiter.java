@@ -0,0 +1,98 @@
+package com.example.apigatewayservice.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+TCP Vegas 방식으로 동시 요청 수 제한(limit)을 조절하는 limiter (downstream 서비스 1개당 1개)
+ - 부하가 없을 때의 응답 시간(rttNoLoad, 최근 구간의 최소 응답 시간)과 현재 응답 시간을 비교해 upstream에 쌓인 대기열 크기를 추정한다.
+   queue = limit * (1 - rttNoLoad / rtt)
+ - 대기열이 작으면 limit을 늘리고, 크면 줄인다. 5xx나 타임아웃이 발생하면 바로 줄인다.
+ - limit의 일부만 사용할 수 있는 요청(우선순위가 낮은 요청)은 limit * share를 넘으면 거절한다.
+ */
+public class VegasLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long rttWindowNanos;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+
+    // 이전 구간과 현재 구간의 최소 응답 시간 (upstream의 기본 응답 시간이 바뀌어도 따라가도록 구간마다 갱신)
+    private long previousMinRttNanos = Long.MAX_VALUE;
+    private long currentMinRttNanos = Long.MAX_VALUE;
+    private long windowStartNanos = System.nanoTime();
+
+    public VegasLimiter(int initialLimit, int minLimit, int maxLimit, long rttWindowNanos) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttWindowNanos = rttWindowNanos;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    // 처리 중인 요청 수가 limit * share보다 작으면 요청을 허용하고, 요청 시작 시점의 처리 중인 요청 수를 반환
+    // 허용하지 않으면 -1
+    public int tryAcquire(double share) {
+        int max = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= max)
+                return -1;
+            if (inflight.compareAndSet(current, current + 1))
+                return current + 1;
+        }
+    }
+
+    // 취소된 요청은 응답 시간을 반영하지 않는다.
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    public void release(long rttNanos, int inflightAtStart, boolean dropped) {
+        inflight.decrementAndGet();
+        update(rttNanos, inflightAtStart, dropped);
+    }
+
+    private synchronized void update(long rttNanos, int inflightAtStart, boolean dropped) {
+        long now = System.nanoTime();
+        if (now - windowStartNanos >= rttWindowNanos) {
+            previousMinRttNanos = currentMinRttNanos;
+            currentMinRttNanos = Long.MAX_VALUE;
+            windowStartNanos = now;
+        }
+        if (!dropped)
+            currentMinRttNanos = Math.min(currentMinRttNanos, rttNanos);
+        long rttNoLoad = Math.min(previousMinRttNanos, currentMinRttNanos);
+
+        double current = limit;
+        double log = Math.max(1, Math.log10(current));
+        double next;
+
+        if (dropped) {
+            next = current - log;
+        } else if (inflightAtStart * 2 < current || rttNoLoad == Long.MAX_VALUE) {
+            // limit의 절반도 사용하지 않는 상태에서는 응답 시간으로 limit의 적정성을 판단할 수 없다.
+            return;
+        } else {
+            double queue = Math.ceil(current * (1 - (double) rttNoLoad / rttNanos));
+            if (queue <= log) {
+                next = current + 6 * log;
+            } else if (queue < 3 * log) {
+                next = current + log;
+            } else if (queue > 6 * log) {
+                next = current - log;
+            } else {
+                return;
+            }
+        }
+
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
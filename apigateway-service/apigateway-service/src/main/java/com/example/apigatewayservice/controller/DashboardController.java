@@ -0,0 +1,54 @@
+package com.example.apigatewayservice.controller;
+
+import com.example.apigatewayservice.aggregation.DashboardAggregator;
+import com.example.apigatewayservice.security.JwtTokenVerifier;
+import com.example.apigatewayservice.security.RevokedTokens;
+import com.example.apigatewayservice.security.VerifiedToken;
+import com.example.apigatewayservice.vo.ResponseDashboard;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/*
+Gateway가 직접 처리하는 집계 API (라우트로 전달하지 않음)
+라우트 필터(AuthorizationHeaderFilter)를 거치지 않으므로 JWT 검증과 본인 확인을 여기서 한다.
+ */
+@RestController
+public class DashboardController {
+    JwtTokenVerifier jwtTokenVerifier;
+    RevokedTokens revokedTokens;
+    DashboardAggregator dashboardAggregator;
+
+    public DashboardController(JwtTokenVerifier jwtTokenVerifier, RevokedTokens revokedTokens,
+                               DashboardAggregator dashboardAggregator) {
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.revokedTokens = revokedTokens;
+        this.dashboardAggregator = dashboardAggregator;
+    }
+
+    // 사용자 정보, 주문 목록, 상품 목록을 한 번에 조회
+    @GetMapping("/dashboard/{userId}")
+    public Mono<ResponseEntity<ResponseDashboard>> getDashboard(
+            @PathVariable("userId") String userId,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No authorization header");
+
+        VerifiedToken token = jwtTokenVerifier.verify(authorization.replace("Bearer", "").trim());
+        if (token == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT token is not valid");
+        if (revokedTokens.isRevoked(token))
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT token is revoked");
+        if (!token.getSubject().equals(userId))
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "JWT subject does not match the requested userId");
+
+        return dashboardAggregator.dashboard(token)
+                .map(dashboard -> ResponseEntity.status(HttpStatus.OK).body(dashboard));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.apigatewayservice.filter;
+
+import com.example.apigatewayservice.concurrency.ConcurrencyLimiters;
+import com.example.apigatewayservice.concurrency.VegasLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/*
+downstream 서비스별로 동시에 처리 중인 요청 수를 제한하는 필터 (limit은 VegasLimiter가 응답 시간을 보고 조절)
+ - limit을 넘는 요청은 upstream에 쌓아두지 않고 바로 503 SERVICE_UNAVAILABLE로 거절한다.
+ - 라우트의 priority에 따라 limit 중 사용할 수 있는 비율이 다르다.
+   HIGH(로그인, 회원가입) 100%, NORMAL 90%, LOW(일괄 조회 등) 70%
+   upstream이 느려져 limit이 줄어들면 LOW 요청부터 거절된다.
+거절 횟수는 gateway.concurrency.rejected{service, priority} 지표로 기록한다.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimitFilter extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimitFilter.Config> {
+    ConcurrencyLimiters concurrencyLimiters;
+    MeterRegistry meterRegistry;
+
+    private final double normalShare;
+    private final double lowShare;
+
+    public AdaptiveConcurrencyLimitFilter(ConcurrencyLimiters concurrencyLimiters, MeterRegistry meterRegistry,
+                                          Environment env) {
+        super(Config.class);
+        this.concurrencyLimiters = concurrencyLimiters;
+        this.meterRegistry = meterRegistry;
+        this.normalShare = env.getProperty("gateway.concurrency-limit.normal-share", Double.class, 0.9);
+        this.lowShare = env.getProperty("gateway.concurrency-limit.low-share", Double.class, 0.7);
+    }
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    @Data
+    public static class Config {
+        private Priority priority = Priority.NORMAL;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        double share = share(config.getPriority());
+        String priority = config.getPriority().name().toLowerCase();
+        // 라우트(service)와 priority가 이 필터에서 정해지므로 거절 지표는 service별로 한 번만 등록
+        Map<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            // lb://ORDER-SERVICE -> ORDER-SERVICE
+            String service = route != null && route.getUri().getHost() != null ? route.getUri().getHost() : "unknown";
+            VegasLimiter limiter = concurrencyLimiters.limiter(service);
+
+            int inflight = limiter.tryAcquire(share);
+            if (inflight < 0) {
+                rejectedCounters.computeIfAbsent(service, name -> rejected(name, priority)).increment();
+                log.debug("Concurrency limit exceeded: service={}, priority={}, limit={}", service, priority,
+                        limiter.getLimit());
+
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return response.setComplete();
+            }
+
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            limiter.release();
+                            return;
+                        }
+                        limiter.release(System.nanoTime() - start, inflight,
+                                isOverloaded(signal, exchange.getResponse().getRawStatusCode()));
+                    });
+        };
+    }
+
+    // 타임아웃/연결 실패, upstream의 과부하 응답(503, 504)은 limit을 줄이는 신호로 사용
+    // (500 등 애플리케이션 오류는 부하와 관계가 없으므로 제외)
+    private static boolean isOverloaded(SignalType signal, Integer status) {
+        if (signal == SignalType.ON_ERROR)
+            return true;
+        return status != null && (status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    private double share(Priority priority) {
+        switch (priority) {
+            case HIGH:
+                return 1.0;
+            case LOW:
+                return lowShare;
+            default:
+                return normalShare;
+        }
+    }
+
+    private Counter rejected(String service, String priority) {
+        return Counter.builder("gateway.concurrency.rejected")
+                .tag("service", service)
+                .tag("priority", priority)
+                .register(meterRegistry);
+    }
+}
@@ -1,46 +1,59 @@
 package com.example.apigatewayservice.filter;
 
-import io.jsonwebtoken.JwtParserBuilder;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import com.example.apigatewayservice.security.JwtTokenVerifier;
+import com.example.apigatewayservice.security.RevokedTokens;
+import com.example.apigatewayservice.security.TrustedHeaders;
+import com.example.apigatewayservice.security.VerifiedToken;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHeaders;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
-import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.http.server.PathContainer;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.net.URI;
+import java.util.Set;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR;
 
 /*
 HTTP 요청에 포함된 Authorization Header를 검증하는 필터.
 만약 Authorization Header가 없거나, JWT 토큰이 유효하지 않으면 HTTP 응답으로 UNAUTHORIZED 상태 코드를 반환한다.
 1. HTTP 요청에서 Authorization Header를 가져옴.
 2. Authorization Header에 JWT 토큰이 포함되어 있는지 확인하고, JWT 토큰이 없으면 UNAUTHORIZED 상태 코드를 반환
-3. JWT 토큰이 포함되어 있으면, JWT 토큰이 유효한지 검증하고, 유효하지 않으면 UNAUTHORIZED 상태 코드를 반환
-4. JWT 토큰이 유효하면, 필터 체인을 계속 진행한다.
+3. JWT 토큰이 포함되어 있으면, JWT 토큰이 유효한지 검증하고, 유효하지 않거나 폐기된 토큰이면 UNAUTHORIZED 상태 코드를 반환
+4. JWT 토큰이 유효하면, Authorization 헤더를 제거하고 검증된 userId와 만료 시각을 내부 헤더(TrustedHeaders)로 전달한다.
+   하위 서비스는 토큰을 다시 파싱하거나 서명을 검증할 필요가 없다. (로그아웃을 위해 토큰 id도 함께 전달)
+5. subjectPath가 설정된 경우 경로의 {userId}가 토큰의 subject와 다르면 FORBIDDEN 상태 코드를 반환
  */
 @Component
 @Slf4j
 // Custom Filter는 AbstractGatewayFilterFactory를 상속 받아야 한다.
 // Configuration 정보가 있다면 자신의 클래스 안에서 Config라는 내부클래스를 매개변수로 등록한다.
 public class AuthorizationHeaderFilter extends AbstractGatewayFilterFactory<AuthorizationHeaderFilter.Config> {
-    Environment env;
+    JwtTokenVerifier jwtTokenVerifier;
+    RevokedTokens revokedTokens;
 
-    public AuthorizationHeaderFilter(Environment env) {
+    public AuthorizationHeaderFilter(JwtTokenVerifier jwtTokenVerifier, RevokedTokens revokedTokens) {
         super(Config.class);
-        this.env = env;
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.revokedTokens = revokedTokens;
     }
 
     // Inner Class로써 설정과 관련되어 있는 작업을 전달하기 위한 Config 등록
+    @Data
     public static class Config {
-
+        // 토큰의 subject와 일치해야 하는 경로 패턴 (Gateway로 들어온 원래 경로 기준)
+        // ex) /order-service/{userId}/orders
+        private String subjectPath;
     }
 
     // login -> token -> users (with token) -> header(include token)
@@ -49,6 +62,11 @@ public class AuthorizationHeaderFilter extends AbstractGatewayFilterFactory<Auth
     public GatewayFilter apply(Config config) {
         // exchange: GatewayFilter에서 제공하는 ServerWebExchange 객체 (Spring WebFlux에서 사용). HTTP 요청 및 응답을 나태냄
         // chain: 필터 체인을 나타내는 객체
+        // 경로 패턴은 라우트 생성 시 한 번만 파싱
+        PathPattern subjectPattern = config.getSubjectPath() != null
+                ? PathPatternParser.defaultInstance.parse(config.getSubjectPath())
+                : null;
+
         return (exchange, chain) -> {
             // Pre Filter
             // spring cloud gateway는 비동식 방식(Netty)이기 때문에 ServerHttpRequest라는 객체를 사용한다.(ServletRequest가 아님)
@@ -63,51 +81,59 @@ public class AuthorizationHeaderFilter extends AbstractGatewayFilterFactory<Auth
             // HTTP 요청 헤더에서 Authorization 필드에 해당하는 값을 가져옴
             String authorizationHeader = request.getHeaders().get(org.springframework.http.HttpHeaders.AUTHORIZATION).get(0);
             // authorizationHeader 문자열에 Bearer 문자열을 제거하여 jwt 변수에 할당
-            String jwt = authorizationHeader.replace("Bearer", "");
+            // 같은 토큰이 항상 같은 캐시 키가 되도록 앞뒤 공백도 제거
+            String jwt = authorizationHeader.replace("Bearer", "").trim();
 
             // JWT 토큰의 서명을 검증하고, 만료 시간을 확인하여 JWT 토큰이 유효한지 검증
-            if (!isJwtValid(jwt)) {
+            // 이미 검증된 토큰이면 캐시된 결과를 사용하고, 처음 보는 토큰만 서명을 검증한다. (JwtTokenVerifier)
+            VerifiedToken token = jwtTokenVerifier.verify(jwt);
+            if (token == null) {
                 return onError(exchange, "JWT token is not valid", HttpStatus.UNAUTHORIZED);
             }
 
+            // 캐시된 토큰이라도 만료 전에 폐기(로그아웃 등)되었으면 거절 (메모리에서만 확인)
+            if (revokedTokens.isRevoked(token)) {
+                return onError(exchange, "JWT token is revoked", HttpStatus.UNAUTHORIZED);
+            }
+
+            // 다른 사용자의 리소스에 접근하는 요청 차단
+            if (subjectPattern != null && !isSubjectPath(exchange, subjectPattern, token.getSubject())) {
+                return onError(exchange, "JWT subject does not match the requested userId", HttpStatus.FORBIDDEN);
+            }
+
+            // 원본 토큰 대신 검증된 값만 하위 서비스로 전달
+            ServerHttpRequest verifiedRequest = request.mutate()
+                    .headers(headers -> {
+                        headers.remove(HttpHeaders.AUTHORIZATION);
+                        headers.set(TrustedHeaders.USER_ID, token.getSubject());
+                        headers.set(TrustedHeaders.TOKEN_EXPIRES, String.valueOf(token.getExpiresAt()));
+                        if (token.getTokenId() != null)
+                            headers.set(TrustedHeaders.TOKEN_ID, token.getTokenId());
+                    })
+                    .build();
+
             // Post Filter
-            return chain.filter(exchange);
+            return chain.filter(exchange.mutate().request(verifiedRequest).build());
         };
     }
 
-    // jwt 문자열을 파싱하여 JWT 토큰이 유효한지 검증
-    private boolean isJwtValid(String jwt) {
-        boolean returnValue = true;
-        String subject = null;
-
-        try {
-            // JWT 토큰 서명에 사용될 비밀 키 생성. 이때, 비밀 키는 애플리케이션에서 미리 설정한 token.secret 값으로부터 생성되며,
-            // hmacShaKeyFor 메서드는 HMAC-SHA 알고리즘을 사용하여 비밀 키를 생성
-            Key secretKey = Keys.hmacShaKeyFor(env.getProperty("token.secret").getBytes(StandardCharsets.UTF_8));
-            // JWT 토큰을 파싱하기 위한 빌더 객체 생성
-            JwtParserBuilder jwtParserBuilder = Jwts.parserBuilder();
-            // JWT 토큰에 사용될 서명 키 설정
-            JwtParserBuilder jwtParserBuilder1 = jwtParserBuilder.setSigningKey(secretKey);
-            subject = jwtParserBuilder1
-                    .build()
-//                    .parseClaimsJwt(jwt)
-                    // 파싱 대상 JWT 토큰을 Jws(JWT Signature를 포함하는 객체) 객체로 파싱
-                    .parseClaimsJws(jwt)
-                    // 파싱된 JWT 내용을 가져옴
-                    .getBody()
-                    // JWT의 subject 값을 가져옴
-                    .getSubject();
-        } catch (Exception ex) {
-            log.error("jwtParser = {}", ex.getMessage());
-            returnValue = false;
-        }
-
-        // JWT subject 값이 존재하지 않거나 빈 문자열인 경우, 해당 JWT는 유효하지 않은 것으로 판단하고 false를 반환
-        if (subject == null || subject.isEmpty()) {
-            returnValue = false;
-        }
-
-        return returnValue;
+    // 요청 경로가 패턴과 일치하면 {userId}가 subject와 같은지 확인. 패턴과 일치하지 않는 경로는 검사하지 않는다.
+    // RewritePath가 먼저 적용되었을 수 있으므로 Gateway로 들어온 원래 경로를 기준으로 비교
+    private boolean isSubjectPath(ServerWebExchange exchange, PathPattern subjectPattern, String subject) {
+        PathPattern.PathMatchInfo matchInfo = subjectPattern.matchAndExtract(
+                PathContainer.parsePath(originalPath(exchange)));
+        if (matchInfo == null)
+            return true;
+
+        return subject.equals(matchInfo.getUriVariables().get("userId"));
+    }
+
+    private static String originalPath(ServerWebExchange exchange) {
+        Set<URI> originalUris = exchange.getAttribute(GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        if (originalUris != null && !originalUris.isEmpty())
+            return originalUris.iterator().next().getRawPath();
+
+        return exchange.getRequest().getURI().getRawPath();
     }
 
     // ServerWebExchange: Spring WebFlux에서 사용되는 HTTP 요청 및 응답 객체
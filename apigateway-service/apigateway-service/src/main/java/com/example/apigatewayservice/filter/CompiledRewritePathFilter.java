@@ -0,0 +1,48 @@
+package com.example.apigatewayservice.filter;
+
+import com.example.apigatewayservice.routing.CompiledRewritePath;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.RewritePathGatewayFilterFactory;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.addOriginalRequestUrl;
+
+/*
+RewritePath와 같은 설정, 같은 결과의 경로 변환 필터
+정규식을 라우트 생성 시 한 번만 해석하고, 앞부분만 바꾸는 형태는 정규식 없이 변환한다. (CompiledRewritePath)
+사용법: - CompiledRewritePathFilter=/user-service/(?<segment>.*), /$\{segment}
+ */
+@Component
+public class CompiledRewritePathFilter extends AbstractGatewayFilterFactory<RewritePathGatewayFilterFactory.Config> {
+    public CompiledRewritePathFilter() {
+        super(RewritePathGatewayFilterFactory.Config.class);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList(RewritePathGatewayFilterFactory.REGEXP_KEY, RewritePathGatewayFilterFactory.REPLACEMENT_KEY);
+    }
+
+    @Override
+    public GatewayFilter apply(RewritePathGatewayFilterFactory.Config config) {
+        CompiledRewritePath rewritePath = new CompiledRewritePath(config.getRegexp(), config.getReplacement());
+
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            // 다른 필터가 원래 요청 경로를 확인할 수 있도록 저장 (AuthorizationHeaderFilter의 subjectPath 등)
+            addOriginalRequestUrl(exchange, request.getURI());
+
+            String newPath = rewritePath.rewrite(request.getURI().getRawPath());
+            ServerHttpRequest rewritten = request.mutate().path(newPath).build();
+            exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, rewritten.getURI());
+
+            return chain.filter(exchange.mutate().request(rewritten).build());
+        };
+    }
+}
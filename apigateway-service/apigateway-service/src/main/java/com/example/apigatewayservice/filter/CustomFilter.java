@@ -1,5 +1,6 @@
 package com.example.apigatewayservice.filter;
 
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -19,6 +20,9 @@ public class CustomFilter extends AbstractGatewayFilterFactory<CustomFilter.Conf
     public GatewayFilter apply(Config config) {
         // Custom PreFilter
         return ((exchange, chain) -> {
+            if (!GlobalFilter.sampled(config.getSampleRate()))
+                return chain.filter(exchange);
+
             ServerHttpRequest request = exchange.getRequest();
             ServerHttpResponse response = exchange.getResponse();
 
@@ -26,13 +30,15 @@ public class CustomFilter extends AbstractGatewayFilterFactory<CustomFilter.Conf
 
             // Custom Post Filter
             return chain.filter(exchange).then(Mono.fromRunnable(() -> {
-                log.info("Custom PRE filter: response id -> {}", response.getStatusCode());
+                log.info("Custom POST filter: response code -> {}", response.getStatusCode());
             }));
         });
     }
 
+    @Data
     public static class Config {
-        // Put the configuration properties
+        // 로그를 남길 요청의 비율 (0.0 ~ 1.0)
+        private double sampleRate = 1.0;
     }
 
 }
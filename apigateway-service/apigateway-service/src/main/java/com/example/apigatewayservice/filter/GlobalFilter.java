@@ -9,6 +9,13 @@ import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+모든 라우트에 default filter로 적용되는 요청 로그 필터
+요청마다 로그를 남기면 로그 출력 비용이 커지므로 sampleRate 비율의 요청만 기록한다.
+(응답 시간 등 지표는 metrics.RouteLatencyMetricsFilter가 모든 요청에 대해 기록)
+ */
 @Component
 @Slf4j
 public class GlobalFilter extends AbstractGatewayFilterFactory<GlobalFilter.Config> {
@@ -20,11 +27,16 @@ public class GlobalFilter extends AbstractGatewayFilterFactory<GlobalFilter.Conf
     public GatewayFilter apply(Config config) {
         // Custom PreFilter
         return ((exchange, chain) -> {
+            // 샘플링되지 않은 요청은 로그 없이 바로 다음 필터로 전달
+            if (!sampled(config.getSampleRate()))
+                return chain.filter(exchange);
+
             ServerHttpRequest request = exchange.getRequest();
             ServerHttpResponse response = exchange.getResponse();
 
-            log.info("Global Filter baseMessage: {}}", config.getBaseMessage());
+            log.debug("Global Filter baseMessage: {}", config.getBaseMessage());
 
+            long start = System.nanoTime();
             if (config.isPreLogger()) {
                 log.info("Global Filter Start: request id -> {}", request.getId());
             }
@@ -32,7 +44,8 @@ public class GlobalFilter extends AbstractGatewayFilterFactory<GlobalFilter.Conf
             // Global Post Filter
             return chain.filter(exchange).then(Mono.fromRunnable(() -> {
                 if (config.isPostLogger()) {
-                    log.info("Global Filter End: response code -> {}", response.getStatusCode());
+                    log.info("Global Filter End: request id -> {}, response code -> {}, elapsed -> {}ms", request.getId(),
+                            response.getRawStatusCode(), (System.nanoTime() - start) / 1_000_000);
                 }
 
             }));
@@ -44,6 +57,12 @@ public class GlobalFilter extends AbstractGatewayFilterFactory<GlobalFilter.Conf
         private String baseMessage;
         private boolean preLogger;
         private boolean postLogger;
+        // 로그를 남길 요청의 비율 (0.0 ~ 1.0)
+        private double sampleRate = 1.0;
+    }
+
+    static boolean sampled(double sampleRate) {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
     }
 
 }
@@ -0,0 +1,306 @@
+package com.example.apigatewayservice.filter;
+
+import com.example.apigatewayservice.hedging.HedgeBudget;
+import com.example.apigatewayservice.hedging.LatencyPercentileTracker;
+import com.example.apigatewayservice.loadbalancer.InstanceStatsRegistry;
+import com.example.apigatewayservice.loadbalancer.InstanceStatsRegistry.Outcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ALREADY_ROUTED_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/*
+멱등한 GET 요청의 tail latency를 줄이기 위한 hedged request 필터 (라우트별로 filters에 등록한 경우에만 사용)
+1. Load Balancer가 선택한 인스턴스로 요청한다.
+2. 최근 응답 시간의 percentile(기본 p95)이 지나도 응답이 없으면 다른 인스턴스로 같은 요청을 한 번 더 보낸다.
+3. 먼저 응답한 쪽을 사용하고 나머지 요청은 취소한다.
+hedge 요청은 HedgeBudget으로 전체 요청의 일정 비율 이하로 제한한다.
+응답 body를 전부 받은 뒤에 클라이언트로 보내므로 응답 크기가 작은 조회 API에만 사용한다.
+응답이 maxBodySize보다 크면 hedge 없이 기존 라우팅(NettyRoutingFilter)으로 다시 요청한다. (GET/HEAD만 사용하므로 다시 요청해도 안전)
+라우트가 다시 만들어져도(route refresh) 학습한 응답 시간이 유지되도록 응답 시간 기록은 라우트별로 보관한다.
+GET/HEAD가 아닌 요청, path와 일치하지 않는 요청, 스트리밍 응답(NDJSON, SSE)을 요청한 경우에는 기존 라우팅(NettyRoutingFilter)을 그대로 사용한다.
+ */
+@Component
+@Slf4j
+public class HedgingFilter extends AbstractGatewayFilterFactory<HedgingFilter.Config> {
+    // 최근 응답 시간 샘플 수, 백분위 계산에 필요한 최소 샘플 수, 백분위 재계산 주기
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final int MIN_SAMPLES = 100;
+    private static final long PERCENTILE_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // 응답을 모아서 보낼 수 없는 스트리밍 응답
+    private static final List<MediaType> STREAMING_TYPES = List.of(
+            MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    WebClient webClient;
+    LoadBalancerClientFactory loadBalancerClientFactory;
+    InstanceStatsRegistry statsRegistry;
+    HedgeBudget hedgeBudget;
+    ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
+    MeterRegistry meterRegistry;
+
+    // routeId -> 최근 응답 시간
+    private final Map<String, LatencyPercentileTracker> trackers = new ConcurrentHashMap<>();
+
+    public HedgingFilter(WebClient.Builder webClientBuilder, LoadBalancerClientFactory loadBalancerClientFactory,
+                         InstanceStatsRegistry statsRegistry, HedgeBudget hedgeBudget,
+                         ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.webClient = webClientBuilder.build();
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+        this.statsRegistry = statsRegistry;
+        this.hedgeBudget = hedgeBudget;
+        this.headersFiltersProvider = headersFiltersProvider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Data
+    public static class Config implements HasRouteId {
+        // 이 백분위의 응답 시간이 지나도 응답이 없으면 hedge 요청
+        private double percentile = 0.95;
+        // hedge 요청을 보내기 전 최소 대기 시간
+        private Duration minDelay = Duration.ofMillis(20);
+        // 요청 1건의 응답 제한 시간 (초과 시 504)
+        private Duration timeout = Duration.ofSeconds(5);
+        // 메모리에 모을 수 있는 응답 body의 최대 크기 (넘으면 hedge 없이 다시 요청)
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+        // hedge 요청을 사용할 경로 패턴 (Gateway로 들어온 원래 경로 기준, 생략하면 라우트의 모든 GET/HEAD 요청)
+        private String path;
+        private String routeId;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // 같은 라우트의 이전 기록을 사용하고, 백분위 설정이 바뀐 경우에만 새로 만든다.
+        LatencyPercentileTracker tracker = trackers.compute(String.valueOf(config.getRouteId()),
+                (routeId, existing) -> existing != null && existing.getPercentile() == config.getPercentile()
+                        ? existing
+                        : new LatencyPercentileTracker(LATENCY_SAMPLES, config.getPercentile(), MIN_SAMPLES,
+                        PERCENTILE_REFRESH_NANOS));
+        WebClient client = webClient.mutate()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) config.getMaxBodySize().toBytes()))
+                .build();
+        long minDelayNanos = config.getMinDelay().toNanos();
+        PathPattern pathPattern = config.getPath() != null
+                ? PathPatternParser.defaultInstance.parse(config.getPath())
+                : null;
+
+        Counter hedged = counter(config.getRouteId(), "hedged");
+        Counter hedgeWon = counter(config.getRouteId(), "hedge_won");
+        Counter budgetExhausted = counter(config.getRouteId(), "budget_exhausted");
+        Counter tooLarge = counter(config.getRouteId(), "too_large");
+
+        GatewayFilter filter = (exchange, chain) -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if ((method != HttpMethod.GET && method != HttpMethod.HEAD) || lbResponse == null
+                    || !lbResponse.hasServer() || requestUrl == null || route == null || isAlreadyRouted(exchange)
+                    || !matches(exchange, pathPattern) || acceptsStreaming(exchange))
+                return chain.filter(exchange);
+
+            // NettyRoutingFilter가 같은 요청을 다시 보내지 않도록 표시
+            setAlreadyRouted(exchange);
+            hedgeBudget.deposit();
+
+            ServiceInstance primary = lbResponse.getServer();
+            HttpHeaders headers = requestHeaders(exchange);
+
+            // 백분위는 응답을 받은 요청으로만 계산 (hedge 요청에 밀려 취소된 요청은 hedge 시점의 시간만 알 수 있음)
+            long start = System.nanoTime();
+            Mono<ResponseEntity<byte[]>> first = attempt(client, primary, requestUrl, method, headers, config)
+                    .doOnNext(response -> tracker.record(System.nanoTime() - start));
+
+            long thresholdNanos = tracker.percentileNanos();
+            Mono<ResponseEntity<byte[]>> second = thresholdNanos < 0
+                    ? Mono.never()
+                    : Mono.delay(Duration.ofNanos(Math.max(thresholdNanos, minDelayNanos)))
+                    .then(Mono.defer(() -> otherInstance(route.getUri().getHost(), primary)))
+                    .flatMap(instance -> {
+                        if (!hedgeBudget.tryWithdraw()) {
+                            budgetExhausted.increment();
+                            return Mono.<ResponseEntity<byte[]>>never();
+                        }
+
+                        hedged.increment();
+                        URI hedgeUrl = UriComponentsBuilder.fromUri(requestUrl)
+                                .host(instance.getHost())
+                                .port(instance.getPort())
+                                .build(true)
+                                .toUri();
+                        return attempt(client, instance, hedgeUrl, method, headers, config)
+                                .doOnNext(response -> hedgeWon.increment())
+                                // hedge 요청이 실패하면 첫 번째 요청의 결과를 기다린다.
+                                .onErrorResume(ex -> Mono.never());
+                    })
+                    .switchIfEmpty(Mono.never());
+
+            // 먼저 결과(응답 또는 첫 번째 요청의 실패)가 나온 쪽을 사용하고 나머지는 취소
+            return Mono.firstWithSignal(first, second)
+                    .onErrorMap(TimeoutException.class,
+                            ex -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage(), ex))
+                    .flatMap(response -> write(exchange, response))
+                    .onErrorResume(ResponseTooLargeException.class, ex -> {
+                        tooLarge.increment();
+                        exchange.getAttributes().put(GATEWAY_ALREADY_ROUTED_ATTR, false);
+                        return chain.filter(exchange);
+                    });
+        };
+
+        // Load Balancer가 인스턴스를 선택한 뒤, LoadBalancerStatsFilter보다 먼저 실행
+        return new OrderedGatewayFilter(filter, ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1);
+    }
+
+    // 인스턴스 1곳에 요청하고 응답 시간과 결과를 InstanceStatsRegistry에 기록
+    // 응답이 maxBodySize보다 크면 ResponseTooLargeException (인스턴스의 실패로 기록하지 않음)
+    private Mono<ResponseEntity<byte[]>> attempt(WebClient client, ServiceInstance instance, URI url, HttpMethod method,
+                                                 HttpHeaders headers, Config config) {
+        return Mono.defer(() -> {
+            statsRegistry.onStart(instance);
+            long start = System.nanoTime();
+            AtomicInteger status = new AtomicInteger();
+            AtomicBoolean tooLarge = new AtomicBoolean();
+
+            return client.method(method)
+                    .uri(url)
+                    .headers(httpHeaders -> httpHeaders.addAll(headers))
+                    .exchangeToMono(response -> {
+                        status.set(response.rawStatusCode());
+                        return response.toEntity(byte[].class);
+                    })
+                    .timeout(config.getTimeout())
+                    .onErrorMap(DataBufferLimitException.class, ex -> {
+                        tooLarge.set(true);
+                        return new ResponseTooLargeException(config.getMaxBodySize());
+                    })
+                    .doFinally(signal -> statsRegistry.onComplete(instance, System.nanoTime() - start,
+                            Outcome.of(tooLarge.get() ? SignalType.ON_COMPLETE : signal, status.get())));
+        });
+    }
+
+    // RewritePath가 먼저 적용되었을 수 있으므로 Gateway로 들어온 원래 경로를 기준으로 비교
+    private static boolean matches(ServerWebExchange exchange, PathPattern pathPattern) {
+        if (pathPattern == null)
+            return true;
+
+        Set<URI> originalUris = exchange.getAttribute(GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        String path = originalUris != null && !originalUris.isEmpty()
+                ? originalUris.iterator().next().getRawPath()
+                : exchange.getRequest().getURI().getRawPath();
+        return pathPattern.matches(PathContainer.parsePath(path));
+    }
+
+    private static boolean acceptsStreaming(ServerWebExchange exchange) {
+        return exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(accept -> STREAMING_TYPES.stream().anyMatch(accept::equalsTypeAndSubtype));
+    }
+
+    // 첫 번째 인스턴스를 제외하고 사용 가능한 인스턴스 중 비용이 가장 낮은 인스턴스
+    private Mono<ServiceInstance> otherInstance(String serviceId, ServiceInstance primary) {
+        ServiceInstanceListSupplier supplier =
+                loadBalancerClientFactory.getInstance(serviceId, ServiceInstanceListSupplier.class);
+        if (supplier == null)
+            return Mono.empty();
+
+        String primaryId = primary.getInstanceId();
+        return supplier.get().next().flatMap(instances -> {
+            long now = System.nanoTime();
+            return Mono.justOrEmpty(instances.stream()
+                    .filter(instance -> !Objects.equals(instance.getInstanceId(), primaryId))
+                    .filter(instance -> statsRegistry.isAvailable(instance, now))
+                    .min(Comparator.comparingDouble(statsRegistry::cost)));
+        });
+    }
+
+    private HttpHeaders requestHeaders(ServerWebExchange exchange) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(HttpHeadersFilter.filterRequest(headersFiltersProvider.getIfAvailable(), exchange));
+        // Host는 요청하는 인스턴스 주소로 설정되도록 제거
+        headers.remove(HttpHeaders.HOST);
+        return headers;
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, ResponseEntity<byte[]> upstream) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setRawStatusCode(upstream.getStatusCodeValue());
+
+        List<HttpHeadersFilter> headersFilters = headersFiltersProvider.getIfAvailable();
+        HttpHeaders headers = headersFilters != null
+                ? HttpHeadersFilter.filter(headersFilters, upstream.getHeaders(), exchange, HttpHeadersFilter.Type.RESPONSE)
+                : upstream.getHeaders();
+        response.getHeaders().putAll(headers);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+
+        byte[] body = upstream.getBody();
+        if (body == null || exchange.getRequest().getMethod() == HttpMethod.HEAD)
+            return response.setComplete();
+
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private Counter counter(String routeId, String event) {
+        return Counter.builder("gateway.hedging")
+                .tag("route", String.valueOf(routeId))
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+
+    // 응답 body가 maxBodySize보다 커서 모을 수 없음
+    private static class ResponseTooLargeException extends RuntimeException {
+        ResponseTooLargeException(DataSize maxBodySize) {
+            super("Response body exceeds " + maxBodySize.toBytes() + " bytes");
+        }
+    }
+}
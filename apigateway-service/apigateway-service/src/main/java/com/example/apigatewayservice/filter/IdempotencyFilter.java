@@ -0,0 +1,363 @@
+package com.example.apigatewayservice.filter;
+
+import com.example.apigatewayservice.idempotency.IdempotencyStore;
+import com.example.apigatewayservice.idempotency.IdempotencyStore.InFlightRequest;
+import com.example.apigatewayservice.idempotency.IdempotentResponse;
+import com.example.apigatewayservice.security.JwtTokenVerifier;
+import com.example.apigatewayservice.security.RevokedTokens;
+import com.example.apigatewayservice.security.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.cacheRequestBody;
+
+/*
+Idempotency-Key 헤더가 있는 요청(주문 생성 등)을 한 번만 upstream으로 전달하는 필터
+1. 키는 토큰의 subject(userId)별로 구분한다. 토큰이 없거나 유효하지 않으면 그대로 전달하여 AuthorizationHeaderFilter가 거절하도록 한다.
+2. 처리가 끝난 키로 다시 들어온 요청에는 upstream을 호출하지 않고 저장된 응답을 돌려준다. (Idempotent-Replayed: true)
+3. 같은 키의 요청이 처리 중이면 첫 요청의 결과를 기다렸다가 같은 응답을 돌려준다.
+   첫 요청이 저장할 수 없는 결과(5xx, 오류)로 끝나면 기다리던 요청이 다시 처리를 시도한다.
+4. 같은 키로 다른 요청(method, 경로, body)을 보내면 422 UNPROCESSABLE_ENTITY
+2xx 응답만 저장한다. 그 외의 응답은 같은 키로 다시 시도할 수 있다.
+요청, 응답 body는 저장 가능한 크기(max-entry-size)까지만 메모리에 모은다.
+Content-Length가 없는(chunked) 요청이 그보다 크면 413 PAYLOAD_TOO_LARGE, 응답이 그보다 크면 저장하지 않고 그대로 전달한다.
+응답을 가로채기 위해 ResponseCacheFilter와 같이 NettyWriteResponseFilter보다 먼저 실행되므로
+저장된 응답을 돌려주는 요청은 같은 라우트의 요청 수 제한, 동시 요청 수 제한을 거치지 않는다.
+ */
+@Component
+@Slf4j
+public class IdempotencyFilter extends AbstractGatewayFilterFactory<IdempotencyFilter.Config> {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    IdempotencyStore idempotencyStore;
+    JwtTokenVerifier jwtTokenVerifier;
+    RevokedTokens revokedTokens;
+    MeterRegistry meterRegistry;
+
+    // 같은 키의 첫 요청을 기다리는 최대 시간. 지나면 409 CONFLICT
+    private final Duration waitTimeout;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, JwtTokenVerifier jwtTokenVerifier,
+                             RevokedTokens revokedTokens, MeterRegistry meterRegistry, Environment env) {
+        super(Config.class);
+        this.idempotencyStore = idempotencyStore;
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.revokedTokens = revokedTokens;
+        this.meterRegistry = meterRegistry;
+        this.waitTimeout = env.getProperty("gateway.idempotency.wait-timeout", Duration.class, Duration.ofSeconds(10));
+    }
+
+    @Data
+    public static class Config implements HasRouteId {
+        // Idempotency-Key를 적용할 요청 method
+        private List<HttpMethod> methods = Collections.singletonList(HttpMethod.POST);
+        private String routeId;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Counters counters = new Counters(config.getRouteId());
+
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String idempotencyKey = request.getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER);
+            if (idempotencyKey == null || !config.getMethods().contains(request.getMethod()))
+                return chain.filter(exchange);
+
+            if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH)
+                return reject(exchange, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key");
+
+            // 인증되지 않은 요청, 저장 가능한 크기보다 큰 요청은 키를 사용하지 않는다.
+            VerifiedToken token = verifiedToken(request);
+            long contentLength = request.getHeaders().getContentLength();
+            if (token == null || contentLength > idempotencyStore.getMaxEntryBytes()) {
+                counters.bypass.increment();
+                return chain.filter(exchange);
+            }
+
+            String key = config.getRouteId() + '|' + token.getSubject() + '|' + idempotencyKey;
+
+            // 같은 요청인지 비교하기 위해 body를 메모리에 읽어두고, upstream에는 읽어둔 body를 전달
+            // 크기를 미리 알 수 없는 요청은 읽으면서 확인하고, 이미 읽은 body는 upstream에 다시 보낼 수 없으므로 거절한다.
+            ServerWebExchange limited = contentLength < 0 ? limitBody(exchange) : exchange;
+            return cacheRequestBody(limited, cachedRequest -> {
+                ServerWebExchange cached = exchange.mutate().request(cachedRequest).build();
+                return handle(cached, chain, key, fingerprint(cached), counters);
+            }).onErrorResume(RequestBodyTooLargeException.class, ex -> {
+                counters.rejected.increment();
+                return reject(exchange, HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage());
+            });
+        };
+
+        // 응답 body를 가로채려면 응답을 쓰는 NettyWriteResponseFilter보다 먼저 실행되어야 한다.
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> handle(ServerWebExchange exchange, GatewayFilterChain chain, String key, String fingerprint,
+                              Counters counters) {
+        IdempotentResponse stored = idempotencyStore.get(key);
+        if (stored != null)
+            return replay(exchange, stored, fingerprint, counters);
+
+        InFlightRequest inFlight = new InFlightRequest(fingerprint);
+        InFlightRequest leader;
+        try {
+            leader = idempotencyStore.startOrJoin(key, inFlight);
+        } catch (IllegalStateException ex) {
+            counters.rejected.increment();
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        }
+
+        // 같은 키의 요청이 처리 중이면 그 결과를 기다린다.
+        if (leader != null) {
+            if (!leader.getFingerprint().equals(fingerprint)) {
+                counters.mismatch.increment();
+                return reject(exchange, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key reused with a different request");
+            }
+
+            counters.waited.increment();
+            return leader.result()
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .timeout(waitTimeout)
+                    .onErrorResume(TimeoutException.class, ex -> Mono.empty())
+                    .map(result -> result.isPresent()
+                            ? Mono.defer(() -> replay(exchange, result.get(), fingerprint, counters))
+                            // 첫 요청의 결과가 저장되지 않았으면 다시 시도
+                            : Mono.defer(() -> handle(exchange, chain, key, fingerprint, counters)))
+                    .defaultIfEmpty(Mono.defer(() ->
+                            reject(exchange, HttpStatus.CONFLICT, "A request with this Idempotency-Key is in progress")))
+                    .flatMap(Function.identity());
+        }
+
+        // 등록하기 직전에 이전 요청이 끝났을 수 있으므로 다시 확인
+        stored = idempotencyStore.get(key);
+        if (stored != null) {
+            idempotencyStore.abandon(key, inFlight);
+            return replay(exchange, stored, fingerprint, counters);
+        }
+
+        RecordingResponse response = new RecordingResponse(exchange.getResponse(), key, inFlight, counters);
+        return chain.filter(exchange.mutate().response(response).build())
+                // 응답이 저장되었으면 이미 처리 중 목록에서 제거되어 있으므로 아무 것도 하지 않는다.
+                .doFinally(signal -> idempotencyStore.abandon(key, inFlight));
+    }
+
+    // 읽은 크기가 저장 가능한 크기를 넘으면 RequestBodyTooLargeException으로 중단하는 request body
+    private ServerWebExchange limitBody(ServerWebExchange exchange) {
+        long maxBytes = idempotencyStore.getMaxEntryBytes();
+        ServerHttpRequest request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                AtomicLong read = new AtomicLong();
+                return super.getBody().doOnNext(buffer -> {
+                    if (read.addAndGet(buffer.readableByteCount()) > maxBytes) {
+                        DataBufferUtils.release(buffer);
+                        throw new RequestBodyTooLargeException(maxBytes);
+                    }
+                });
+            }
+        };
+        return exchange.mutate().request(request).build();
+    }
+
+    private VerifiedToken verifiedToken(ServerHttpRequest request) {
+        String authorizationHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorizationHeader == null)
+            return null;
+
+        VerifiedToken token = jwtTokenVerifier.verify(authorizationHeader.replace("Bearer", "").trim());
+        if (token == null || revokedTokens.isRevoked(token))
+            return null;
+
+        return token;
+    }
+
+    // method, 경로, 쿼리, body의 SHA-256
+    private static String fingerprint(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(request.getMethod()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getURI().getRawPath().getBytes(StandardCharsets.UTF_8));
+            if (request.getURI().getRawQuery() != null) {
+                digest.update((byte) '?');
+                digest.update(request.getURI().getRawQuery().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+
+            DataBuffer body = exchange.getAttribute(CACHED_REQUEST_BODY_ATTR);
+            if (body != null)
+                digest.update(body.asByteBuffer());
+
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // 저장된 응답으로 upstream 호출 없이 응답
+    private Mono<Void> replay(ServerWebExchange exchange, IdempotentResponse stored, String fingerprint,
+                              Counters counters) {
+        if (!stored.getFingerprint().equals(fingerprint)) {
+            counters.mismatch.increment();
+            return reject(exchange, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key reused with a different request");
+        }
+
+        counters.replayed.increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setRawStatusCode(stored.getStatus());
+
+        HttpHeaders headers = response.getHeaders();
+        headers.clear();
+        headers.putAll(stored.getHeaders());
+        headers.setContentLength(stored.getBody().length);
+        headers.set(REPLAYED_HEADER, "true");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(stored.getBody())));
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, String reason) {
+        log.debug("Idempotent request rejected: status={}, reason={}", status, reason);
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        return response.setComplete();
+    }
+
+    private static boolean isStorable(ServerHttpResponse response) {
+        Integer status = response.getRawStatusCode();
+        if (status == null || status < 200 || status >= 300)
+            return false;
+
+        // 스트리밍 응답은 저장하지 않는다.
+        MediaType contentType = response.getHeaders().getContentType();
+        return contentType == null
+                || !(MediaType.TEXT_EVENT_STREAM.includes(contentType) || MediaType.APPLICATION_NDJSON.includes(contentType));
+    }
+
+    private static class RequestBodyTooLargeException extends RuntimeException {
+        RequestBodyTooLargeException(long maxBytes) {
+            super("Request body with an Idempotency-Key exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    private class Counters {
+        private final Counter stored;
+        private final Counter replayed;
+        private final Counter waited;
+        private final Counter mismatch;
+        private final Counter bypass;
+        private final Counter rejected;
+
+        Counters(String routeId) {
+            this.stored = counter(routeId, "stored");
+            this.replayed = counter(routeId, "replayed");
+            this.waited = counter(routeId, "waited");
+            this.mismatch = counter(routeId, "mismatch");
+            this.bypass = counter(routeId, "bypass");
+            this.rejected = counter(routeId, "rejected");
+        }
+
+        private Counter counter(String routeId, String result) {
+            return Counter.builder("gateway.idempotency.requests")
+                    .tag("route", String.valueOf(routeId))
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+
+    // upstream 응답 body를 모아 저장하면서 클라이언트에게도 그대로 전달하는 응답 decorator
+    // 클라이언트와의 연결이 끊겨도 응답은 저장되므로, 클라이언트가 같은 키로 재시도하면 저장된 응답을 받는다.
+    private class RecordingResponse extends ServerHttpResponseDecorator {
+        private final String key;
+        private final InFlightRequest inFlight;
+        private final Counters counters;
+
+        RecordingResponse(ServerHttpResponse delegate, String key, InFlightRequest inFlight, Counters counters) {
+            super(delegate);
+            this.key = key;
+            this.inFlight = inFlight;
+            this.counters = counters;
+        }
+
+        // 저장 가능한 크기까지만 모아두고, 끝까지 그 크기를 넘지 않으면 저장한 뒤 한 번에 전달한다.
+        // 넘으면 모아둔 부분부터 나머지를 저장하지 않고 그대로 전달한다. (Content-Length가 없는 응답도 크기를 제한)
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long maxBytes = idempotencyStore.getMaxEntryBytes();
+            if (!isStorable(this) || getHeaders().getContentLength() > maxBytes)
+                return super.writeWith(body);
+
+            AtomicLong size = new AtomicLong();
+            Flux<DataBuffer> recorded = Flux.from(body)
+                    .map(buffer -> (DataBuffer) buffer)
+                    .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBytes)
+                    .defaultIfEmpty(Collections.emptyList())
+                    .concatMap(buffers -> size.get() > maxBytes ? Flux.fromIterable(buffers) : Mono.just(store(buffers)))
+                    .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+            return super.writeWith(recorded);
+        }
+
+        private DataBuffer store(List<DataBuffer> buffers) {
+            byte[] bytes = new byte[buffers.stream().mapToInt(DataBuffer::readableByteCount).sum()];
+            int offset = 0;
+            for (DataBuffer buffer : buffers) {
+                int length = buffer.readableByteCount();
+                buffer.read(bytes, offset, length);
+                offset += length;
+                DataBufferUtils.release(buffer);
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(getHeaders());
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.remove(HttpHeaders.CONNECTION);
+
+            idempotencyStore.complete(key, inFlight, new IdempotentResponse(inFlight.getFingerprint(),
+                    getRawStatusCode(), headers, bytes, System.currentTimeMillis()));
+            counters.stored.increment();
+            return bufferFactory().wrap(bytes);
+        }
+    }
+}
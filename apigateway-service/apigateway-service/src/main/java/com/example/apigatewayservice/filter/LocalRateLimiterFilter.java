@@ -0,0 +1,107 @@
+package com.example.apigatewayservice.filter;
+
+import com.example.apigatewayservice.ratelimit.TokenBuckets;
+import com.example.apigatewayservice.security.TrustedHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/*
+라우트별 요청 수를 사용자 단위로 제한하는 필터 (Redis를 사용하지 않는 인스턴스 로컬 Token Bucket)
+1. AuthorizationHeaderFilter가 검증한 userId(X-User-Id)가 있으면 사용자별로, 없으면 클라이언트 IP별로 버킷을 사용
+2. 토큰이 남아 있으면 X-RateLimit-Remaining 헤더와 함께 요청을 전달
+3. 토큰이 없으면 429 TOO_MANY_REQUESTS와 Retry-After(초) 헤더를 반환
+사용자별로 제한하려면 라우트의 filters에서 AuthorizationHeaderFilter 다음에 등록해야 한다.
+허용/거절 횟수는 gateway.ratelimit.requests{route, outcome} 지표로 기록한다.
+ */
+@Component
+@Slf4j
+public class LocalRateLimiterFilter extends AbstractGatewayFilterFactory<LocalRateLimiterFilter.Config> {
+    TokenBuckets tokenBuckets;
+    MeterRegistry meterRegistry;
+
+    public LocalRateLimiterFilter(TokenBuckets tokenBuckets, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.tokenBuckets = tokenBuckets;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Data
+    public static class Config implements HasRouteId {
+        // 초당 채워지는 토큰 수 (허용하는 평균 요청 수)
+        private double replenishRate = 10;
+        // 버킷 크기 (순간적으로 허용하는 최대 요청 수)
+        private long burstCapacity = 20;
+        private String routeId;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getReplenishRate() <= 0 || config.getBurstCapacity() < 1)
+            throw new IllegalArgumentException("replenishRate and burstCapacity must be positive: " + config);
+
+        long emissionNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.getReplenishRate());
+        // routeId와 설정 값으로 버킷 이름 공간을 나눈다.
+        // 라우트가 다시 만들어져도(route refresh) 설정이 같으면 같은 이름 공간을 사용하므로 버킷이 초기화되지 않는다.
+        String namespace = config.getRouteId() + "#" + Integer.toHexString(config.hashCode()) + ":";
+
+        Counter allowed = counter(config.getRouteId(), "allowed");
+        Counter limited = counter(config.getRouteId(), "limited");
+
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            long result = tokenBuckets.tryAcquire(namespace + clientKey(request), emissionNanos,
+                    config.getBurstCapacity());
+
+            ServerHttpResponse response = exchange.getResponse();
+            if (result >= 0) {
+                allowed.increment();
+                response.getHeaders().set("X-RateLimit-Remaining", String.valueOf(result));
+                return chain.filter(exchange);
+            }
+
+            limited.increment();
+            // 다음 토큰이 채워질 때까지 남은 시간 (초 단위 올림)
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(-result + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.getHeaders().set("X-RateLimit-Remaining", "0");
+
+            log.debug("Rate limited: route={}, key={}", config.getRouteId(), clientKey(request));
+            return response.setComplete();
+        };
+    }
+
+    // 인증된 요청은 userId, 그 외에는 클라이언트 IP
+    // X-Forwarded-For는 클라이언트가 임의로 보낼 수 있으므로 사용하지 않는다.
+    private static String clientKey(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst(TrustedHeaders.USER_ID);
+        if (userId != null)
+            return "user:" + userId;
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null)
+            return "ip:unknown";
+
+        return "ip:" + remoteAddress.getAddress().getHostAddress();
+    }
+
+    private Counter counter(String routeId, String outcome) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .tag("route", String.valueOf(routeId))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
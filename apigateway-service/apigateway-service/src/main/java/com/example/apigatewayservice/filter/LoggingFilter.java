@@ -41,10 +41,13 @@ public class LoggingFilter extends AbstractGatewayFilterFactory<LoggingFilter.Co
 //        });
 
         GatewayFilter filter = new OrderedGatewayFilter((exchange, chain) -> {
+            if (!GlobalFilter.sampled(config.getSampleRate()))
+                return chain.filter(exchange);
+
             ServerHttpRequest request = exchange.getRequest();
             ServerHttpResponse response = exchange.getResponse();
 
-            log.info("Logging Filter baseMessage: {}}", config.getBaseMessage());
+            log.debug("Logging Filter baseMessage: {}", config.getBaseMessage());
 
             if (config.isPreLogger()) {
                 log.info("Logging PRE Filter: request id -> {}", request.getId());
@@ -68,6 +71,8 @@ public class LoggingFilter extends AbstractGatewayFilterFactory<LoggingFilter.Co
         private String baseMessage;
         private boolean preLogger;
         private boolean postLogger;
+        // 로그를 남길 요청의 비율 (0.0 ~ 1.0)
+        private double sampleRate = 1.0;
     }
 
 }
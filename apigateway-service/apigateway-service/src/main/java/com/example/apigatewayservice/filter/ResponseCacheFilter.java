@@ -0,0 +1,324 @@
+package com.example.apigatewayservice.filter;
+
+import com.example.apigatewayservice.cache.CachedResponse;
+import com.example.apigatewayservice.cache.ResponseCacheStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+읽기 위주 GET 라우트의 응답을 Gateway에 캐싱하는 필터
+1. 라우트, 경로, 쿼리, varyHeaders 값으로 캐시 키를 만든다.
+2. 신선한 응답이 있으면 upstream을 호출하지 않고 바로 응답한다. (클라이언트의 If-None-Match가 ETag와 같으면 304)
+3. 오래된 응답에 ETag가 있으면 If-None-Match를 붙여 upstream에 재검증하고, 304이면 저장된 body로 응답한다.
+4. 같은 키에 대한 캐시 미스가 동시에 들어오면 첫 요청만 upstream을 호출하고 나머지는 그 결과를 함께 사용한다. (request collapsing)
+5. upstream 응답의 Cache-Control(no-store, private, no-cache, max-age, s-maxage)을 따르며, 200이 아니거나 Set-Cookie가 있으면 저장하지 않는다.
+응답을 가로채기 위해 NettyWriteResponseFilter보다 먼저 실행되므로 같은 라우트의 다른 필터(인증 등)보다도 먼저 실행된다.
+따라서 인증이 필요한 라우트에는 사용하지 않으며, Authorization 헤더가 있는 요청은 캐시를 사용하지 않는다.
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    ResponseCacheStore responseCacheStore;
+    MeterRegistry meterRegistry;
+
+    // 캐시 키 -> upstream을 호출 중인 첫 요청의 결과
+    private final Map<String, Sinks.One<CachedResponse>> inflight = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter(ResponseCacheStore responseCacheStore, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.responseCacheStore = responseCacheStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Data
+    public static class Config implements HasRouteId {
+        // upstream이 max-age를 지정하지 않았을 때의 신선도 (max-age가 더 길어도 이 값을 넘지 않는다)
+        private Duration ttl = Duration.ofSeconds(30);
+        // 캐시 키에 포함할 요청 헤더 (같은 경로라도 헤더 값에 따라 응답이 달라지는 경우)
+        private List<String> varyHeaders = Arrays.asList(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        private String routeId;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Counter hit = counter(config.getRouteId(), "hit");
+        Counter miss = counter(config.getRouteId(), "miss");
+        Counter revalidated = counter(config.getRouteId(), "revalidated");
+        Counter collapsed = counter(config.getRouteId(), "collapsed");
+        Counter bypass = counter(config.getRouteId(), "bypass");
+
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!isCacheableRequest(request)) {
+                bypass.increment();
+                return chain.filter(exchange);
+            }
+
+            String key = cacheKey(config, request);
+            CachedResponse cached = responseCacheStore.get(key);
+            if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+                hit.increment();
+                return writeCached(exchange, cached, "HIT");
+            }
+
+            // 이미 같은 키로 upstream을 호출 중이면 그 결과를 기다린다.
+            // 첫 요청의 응답을 저장할 수 없었다면 각자 upstream을 호출
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> leader = inflight.putIfAbsent(key, sink);
+            if (leader != null) {
+                collapsed.increment();
+                return leader.asMono()
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(response -> response.isPresent()
+                                ? writeCached(exchange, response.get(), "HIT")
+                                : chain.filter(exchange));
+            }
+
+            // 오래된 응답에 ETag가 있으면 재검증 요청 (클라이언트가 직접 보낸 조건부 요청은 그대로 전달)
+            CachedResponse stale = null;
+            ServerWebExchange forwarded = exchange;
+            if (cached != null && cached.getEtag() != null
+                    && !request.getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH)) {
+                stale = cached;
+                String etag = cached.getEtag();
+                forwarded = exchange.mutate()
+                        .request(builder -> builder.header(HttpHeaders.IF_NONE_MATCH, etag))
+                        .build();
+            } else {
+                miss.increment();
+            }
+
+            CachingResponse cachingResponse = new CachingResponse(forwarded.getResponse(), key, config, stale,
+                    sink, revalidated);
+            return chain.filter(forwarded.mutate().response(cachingResponse).build())
+                    .doFinally(signal -> {
+                        inflight.remove(key, sink);
+                        // 저장하지 못한 경우 기다리던 요청들이 각자 upstream을 호출하도록 알림
+                        sink.tryEmitEmpty();
+                    });
+        };
+
+        // 응답 body를 가로채려면 응답을 쓰는 NettyWriteResponseFilter보다 먼저 실행되어야 한다.
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private static boolean isCacheableRequest(ServerHttpRequest request) {
+        if (request.getMethod() != HttpMethod.GET)
+            return false;
+
+        HttpHeaders headers = request.getHeaders();
+        // 사용자별 응답은 캐싱하지 않는다.
+        if (headers.containsKey(HttpHeaders.AUTHORIZATION))
+            return false;
+
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("no-store")))
+            return false;
+
+        return !"no-cache".equals(headers.getPragma());
+    }
+
+    private static String cacheKey(Config config, ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder()
+                .append(config.getRouteId()).append('|')
+                .append(request.getURI().getRawPath());
+        if (request.getURI().getRawQuery() != null)
+            key.append('?').append(request.getURI().getRawQuery());
+
+        for (String header : config.getVaryHeaders())
+            key.append('|').append(request.getHeaders().getFirst(header));
+
+        return key.toString();
+    }
+
+    // upstream 응답의 신선도(millis). 저장할 수 없는 응답이면 0 이하
+    private static long freshnessMillis(HttpHeaders headers, Config config) {
+        long ttl = config.getTtl().toMillis();
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null)
+            return ttl;
+
+        long maxAge = -1;
+        for (String directive : cacheControl.toLowerCase().split(",")) {
+            directive = directive.trim();
+            if (directive.equals("no-store") || directive.equals("private") || directive.equals("no-cache"))
+                return 0;
+
+            // 공유 캐시에는 s-maxage가 max-age보다 우선한다.
+            if (directive.startsWith("s-maxage="))
+                maxAge = parseSeconds(directive.substring("s-maxage=".length()));
+            else if (directive.startsWith("max-age=") && maxAge < 0)
+                maxAge = parseSeconds(directive.substring("max-age=".length()));
+        }
+
+        return maxAge >= 0 ? Math.min(maxAge * 1000, ttl) : ttl;
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static boolean isStorable(ServerHttpResponse response) {
+        if (response.getRawStatusCode() == null || response.getRawStatusCode() != HttpStatus.OK.value())
+            return false;
+
+        HttpHeaders headers = response.getHeaders();
+        if (headers.containsKey(HttpHeaders.SET_COOKIE))
+            return false;
+
+        // 스트리밍 응답은 저장하지 않는다.
+        MediaType contentType = headers.getContentType();
+        return contentType == null
+                || !(MediaType.TEXT_EVENT_STREAM.includes(contentType) || MediaType.APPLICATION_NDJSON.includes(contentType));
+    }
+
+    // 저장된 응답으로 upstream 호출 없이 응답
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+
+        // 클라이언트가 이미 같은 버전을 가지고 있으면 body 없이 304
+        String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (cached.getEtag() != null && cached.getEtag().equals(ifNoneMatch)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().setETag(cached.getEtag());
+            response.getHeaders().set(CACHE_STATUS_HEADER, cacheStatus);
+            return response.setComplete();
+        }
+
+        response.setRawStatusCode(cached.getStatus());
+        writeCachedHeaders(response.getHeaders(), cached, cacheStatus);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    private static void writeCachedHeaders(HttpHeaders headers, CachedResponse cached, String cacheStatus) {
+        headers.clear();
+        headers.putAll(cached.getHeaders());
+        headers.setContentLength(cached.getBody().length);
+        headers.set(HttpHeaders.AGE, String.valueOf((System.currentTimeMillis() - cached.getStoredAt()) / 1000));
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.response.cache")
+                .tag("route", String.valueOf(routeId))
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // upstream 응답 body를 모아 캐시에 저장하면서 클라이언트에게도 그대로 전달하는 응답 decorator
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        private final String key;
+        private final Config config;
+        private final CachedResponse stale;
+        private final Sinks.One<CachedResponse> sink;
+        private final Counter revalidated;
+
+        CachingResponse(ServerHttpResponse delegate, String key, Config config, CachedResponse stale,
+                        Sinks.One<CachedResponse> sink, Counter revalidated) {
+            super(delegate);
+            this.key = key;
+            this.config = config;
+            this.stale = stale;
+            this.sink = sink;
+            this.revalidated = revalidated;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long now = System.currentTimeMillis();
+
+            // 재검증 결과 변경되지 않았으면 저장된 body로 응답
+            if (stale != null && getRawStatusCode() != null && getRawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                CachedResponse refreshed = stale.revalidated(now,
+                        Math.max(freshnessMillis(getHeaders(), config), 0));
+                responseCacheStore.put(key, refreshed);
+                sink.tryEmitValue(refreshed);
+                revalidated.increment();
+
+                setRawStatusCode(stale.getStatus());
+                writeCachedHeaders(getHeaders(), stale, "REVALIDATED");
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(super.writeWith(Mono.just(bufferFactory().wrap(stale.getBody()))));
+            }
+
+            long freshness = freshnessMillis(getHeaders(), config);
+            if (freshness <= 0 || !isStorable(this) || getHeaders().getContentLength() > responseCacheStore.getMaxEntryBytes())
+                return super.writeWith(body);
+
+            // 저장 가능한 크기까지만 모아두고, 끝까지 그 크기를 넘지 않으면 저장한 뒤 한 번에 전달한다.
+            // 넘으면 모아둔 부분부터 나머지를 저장하지 않고 그대로 전달한다. (Content-Length가 없는 응답도 크기를 제한)
+            long maxBytes = responseCacheStore.getMaxEntryBytes();
+            AtomicLong size = new AtomicLong();
+            getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            Flux<DataBuffer> cached = Flux.from(body)
+                    .map(buffer -> (DataBuffer) buffer)
+                    .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBytes)
+                    .defaultIfEmpty(Collections.emptyList())
+                    .concatMap(buffers -> size.get() > maxBytes ? Flux.fromIterable(buffers) : Mono.just(store(buffers, now, freshness)))
+                    .doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+            return super.writeWith(cached);
+        }
+
+        private DataBuffer store(List<DataBuffer> buffers, long now, long freshness) {
+            byte[] bytes = new byte[buffers.stream().mapToInt(DataBuffer::readableByteCount).sum()];
+            int offset = 0;
+            for (DataBuffer buffer : buffers) {
+                int length = buffer.readableByteCount();
+                buffer.read(bytes, offset, length);
+                offset += length;
+                DataBufferUtils.release(buffer);
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(getHeaders());
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.remove(HttpHeaders.CONNECTION);
+            headers.remove(CACHE_STATUS_HEADER);
+
+            CachedResponse response = new CachedResponse(getRawStatusCode(), headers, bytes, now, now + freshness);
+            responseCacheStore.put(key, response);
+            sink.tryEmitValue(response);
+            return bufferFactory().wrap(bytes);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.apigatewayservice.hedging;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+모든 라우트가 함께 사용하는 hedge 요청 예산
+일반 요청 1건마다 ratio만큼 예산이 쌓이고, hedge 요청 1건마다 1만큼 사용한다.
+(ratio가 0.05이면 hedge 요청은 전체 요청의 약 5%를 넘지 않는다.)
+upstream 전체가 느려져 모든 요청이 hedge 대상이 되어도 부하가 두 배로 늘어나지 않도록 제한하기 위함.
+ */
+@Component
+public class HedgeBudget {
+    // 예산은 1/1000 단위의 정수로 관리
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+
+    public HedgeBudget(Environment env) {
+        double ratio = env.getProperty("gateway.hedging.budget-ratio", Double.class, 0.05);
+        long maxTokens = env.getProperty("gateway.hedging.max-tokens", Long.class, 20L);
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.maxBalance = maxTokens * SCALE;
+    }
+
+    public void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance)
+                return;
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + depositPerRequest)));
+    }
+
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE)
+                return false;
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
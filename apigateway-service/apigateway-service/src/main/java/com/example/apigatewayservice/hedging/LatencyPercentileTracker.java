@@ -0,0 +1,60 @@
+package com.example.apigatewayservice.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+최근 응답 시간의 백분위 값을 추적 (hedge 요청을 보내기까지 기다릴 시간 계산에 사용)
+최근 capacity개의 값을 링 버퍼에 보관하고, 백분위 값은 refreshNanos마다 한 번만 다시 계산한다.
+ */
+public class LatencyPercentileTracker {
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private final int minSamples;
+    private final long refreshNanos;
+
+    // 아직 샘플이 부족하면 -1
+    private volatile long percentileNanos = -1;
+    private volatile long computedAtNanos;
+
+    public LatencyPercentileTracker(int capacity, double percentile, int minSamples, long refreshNanos) {
+        this.samples = new AtomicLongArray(capacity);
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, capacity);
+        this.refreshNanos = refreshNanos;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void record(long latencyNanos) {
+        long index = count.getAndIncrement();
+        samples.set((int) (index % samples.length()), latencyNanos);
+    }
+
+    public long percentileNanos() {
+        long now = System.nanoTime();
+        if (now - computedAtNanos >= refreshNanos) {
+            computedAtNanos = now;
+            percentileNanos = compute();
+        }
+        return percentileNanos;
+    }
+
+    private long compute() {
+        int size = (int) Math.min(count.get(), samples.length());
+        if (size < minSamples)
+            return -1;
+
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++)
+            sorted[i] = samples.get(i);
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.apigatewayservice.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+IdempotencyFilter가 사용하는 저장소.
+- 처리가 끝난 요청의 응답은 ttl 동안 보관하고, 전체 크기(body bytes 기준)를 max-bytes로 제한한다.
+- 처리 중인 요청은 키별로 하나만 upstream으로 보내고, 같은 키의 요청은 그 결과를 기다린다. (최대 max-inflight개)
+ */
+@Component
+public class IdempotencyStore {
+    // 헤더 등 body 이외의 대략적인 메모리 사용량
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final Cache<String, IdempotentResponse> completed;
+    private final Map<String, InFlightRequest> inflight = new ConcurrentHashMap<>();
+
+    @Getter
+    private final int maxEntryBytes;
+    private final int maxInflight;
+
+    @Autowired
+    public IdempotencyStore(Environment env, MeterRegistry meterRegistry) {
+        this.maxEntryBytes = env.getProperty("gateway.idempotency.max-entry-bytes", Integer.class, 64 * 1024);
+        this.maxInflight = env.getProperty("gateway.idempotency.max-inflight", Integer.class, 10_000);
+
+        this.completed = Caffeine.newBuilder()
+                .maximumWeight(env.getProperty("gateway.idempotency.max-bytes", Long.class, 16L * 1024 * 1024))
+                .weigher((String key, IdempotentResponse response) -> response.getBody().length + ENTRY_OVERHEAD_BYTES)
+                .expireAfterWrite(env.getProperty("gateway.idempotency.ttl", Duration.class, Duration.ofHours(1)))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "gateway.idempotency.responses");
+        Gauge.builder("gateway.idempotency.inflight", inflight, Map::size).register(meterRegistry);
+    }
+
+    public IdempotentResponse get(String key) {
+        return completed.getIfPresent(key);
+    }
+
+    // 키로 처리 중인 요청을 등록. 이미 처리 중인 요청이 있으면 그 요청을 반환하고, 등록했으면 null
+    // 처리 중인 요청이 너무 많으면 IllegalStateException
+    public InFlightRequest startOrJoin(String key, InFlightRequest request) {
+        InFlightRequest leader = inflight.get(key);
+        if (leader != null)
+            return leader;
+        if (inflight.size() >= maxInflight)
+            throw new IllegalStateException("Too many in-flight idempotent requests");
+
+        return inflight.putIfAbsent(key, request);
+    }
+
+    // 응답을 먼저 저장한 뒤 처리 중 목록에서 제거 (그 사이에 들어온 요청이 get()으로 응답을 찾을 수 있도록)
+    public void complete(String key, InFlightRequest request, IdempotentResponse response) {
+        completed.put(key, response);
+        inflight.remove(key, request);
+        request.sink.tryEmitValue(response);
+    }
+
+    // 저장할 수 없는 결과(5xx, 오류, 취소 등)로 끝난 경우. 기다리던 요청은 다시 처리를 시도한다.
+    public void abandon(String key, InFlightRequest request) {
+        inflight.remove(key, request);
+        request.sink.tryEmitEmpty();
+    }
+
+    // upstream으로 전달 중인 요청
+    public static class InFlightRequest {
+        @Getter
+        private final String fingerprint;
+        private final Sinks.One<IdempotentResponse> sink = Sinks.one();
+
+        public InFlightRequest(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        // 저장된 응답. 저장되지 않고 끝나면 empty
+        public Mono<IdempotentResponse> result() {
+            return sink.asMono();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.apigatewayservice.idempotency;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+
+/*
+Idempotency-Key로 처리가 끝난 요청의 응답 (상태 코드, 헤더, body)
+같은 키로 다시 들어온 요청에는 upstream을 호출하지 않고 이 응답을 그대로 돌려준다.
+ */
+@Getter
+public class IdempotentResponse {
+    // 원래 요청의 method, 경로, body hash. 같은 키로 다른 요청을 보내면 재사용하지 않는다.
+    private final String fingerprint;
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    // 저장된 시각 (epoch millis)
+    private final long storedAt;
+
+    public IdempotentResponse(String fingerprint, int status, HttpHeaders headers, byte[] body, long storedAt) {
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.storedAt = storedAt;
+    }
+}
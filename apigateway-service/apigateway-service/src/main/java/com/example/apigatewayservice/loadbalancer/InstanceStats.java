@@ -0,0 +1,111 @@
+package com.example.apigatewayservice.loadbalancer;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+인스턴스 하나에 대해 Gateway가 관찰한 상태
+- outstanding: 현재 처리 중인 요청 수
+- ewmaNanos: 응답 시간의 지수 가중 이동 평균 (최근 값일수록 가중치가 크고, 평균보다 느린 응답은 즉시 반영하는 peak EWMA)
+- 연속 실패 횟수와 제외(ejection) 상태
+ */
+public class InstanceStats {
+    @Getter
+    private final String instanceId;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    // 아직 응답 시간을 관찰하지 못한 경우(새 인스턴스, 다시 투입된 인스턴스) false
+    private boolean sampled;
+    private double ewmaNanos;
+    private long lastSampleNanos;
+    private int consecutiveFailures;
+    private int ejectionCount;
+
+    // 제외가 끝나는 시각, 다시 투입된 시각 (System.nanoTime 기준)
+    private volatile long ejectedUntilNanos;
+    private volatile long readmittedAtNanos;
+    private volatile boolean ejected;
+
+    InstanceStats(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    // 관찰한 응답 시간이 없으면 처리 중인 요청마다 penaltyNanos가 걸린 것으로 계산
+    // (처리 중인 요청이 없는 새 인스턴스는 비용이 0이므로 바로 선택되어 응답 시간을 측정하게 된다.)
+    public synchronized double latencyNanos(double penaltyNanos) {
+        return sampled ? ewmaNanos : penaltyNanos * outstanding.get();
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    void finish() {
+        outstanding.decrementAndGet();
+    }
+
+    // 경과 시간에 따라 감쇠하는 EWMA (decayNanos가 지나면 이전 값의 가중치가 1/e로 줄어든다)
+    synchronized void observe(long rttNanos, long now, long decayNanos) {
+        if (!sampled || rttNanos > ewmaNanos) {
+            sampled = true;
+            ewmaNanos = rttNanos;
+        } else {
+            double weight = Math.exp(-(double) Math.max(0, now - lastSampleNanos) / decayNanos);
+            ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+        }
+        lastSampleNanos = now;
+    }
+
+    synchronized void success() {
+        consecutiveFailures = 0;
+    }
+
+    // 연속 실패 횟수가 threshold에 도달하면 제외하고 true 반환
+    // 제외될 때마다 제외 시간이 늘어난다. (baseEjection * 제외 횟수, 최대 maxEjection)
+    synchronized boolean failure(int threshold, long baseEjectionNanos, long maxEjectionNanos, long now) {
+        if (++consecutiveFailures < threshold || isEjected(now))
+            return false;
+
+        consecutiveFailures = 0;
+        ejectionCount++;
+        ejectedUntilNanos = now + Math.min(baseEjectionNanos * ejectionCount, maxEjectionNanos);
+        ejected = true;
+        return true;
+    }
+
+    boolean isEjected(long now) {
+        if (!ejected)
+            return false;
+        if (now - ejectedUntilNanos < 0)
+            return true;
+
+        synchronized (this) {
+            // 제외 시간이 끝나면 이전 응답 시간을 버리고 slow start 구간부터 다시 투입
+            if (ejected) {
+                ejected = false;
+                sampled = false;
+                readmittedAtNanos = now;
+            }
+        }
+        return false;
+    }
+
+    // 다시 투입된 뒤 slowStartNanos 동안 0.1 -> 1.0으로 선형 증가하는 가중치 (후보에 포함될 확률)
+    double weight(long now, long slowStartNanos) {
+        long readmittedAt = readmittedAtNanos;
+        if (readmittedAt == 0 || slowStartNanos <= 0)
+            return 1.0;
+
+        double progress = (double) (now - readmittedAt) / slowStartNanos;
+        if (progress >= 1.0) {
+            readmittedAtNanos = 0;
+            return 1.0;
+        }
+        return Math.max(0.1, progress);
+    }
+}
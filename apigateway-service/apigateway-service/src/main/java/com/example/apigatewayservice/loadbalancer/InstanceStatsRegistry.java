@@ -0,0 +1,146 @@
+package com.example.apigatewayservice.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/*
+lb:// 라우트 대상 인스턴스들의 상태(InstanceStats)를 보관하고, PeakEwmaLoadBalancer가 사용할 비용을 계산한다.
+상태는 LoadBalancerStatsFilter가 요청 시작/종료 시점에 갱신한다.
+ - 비용 = EWMA 응답 시간 * (처리 중인 요청 수 + 1)
+ - 연속으로 실패한 인스턴스는 일정 시간 제외하고, 제외가 끝나면 slow start 동안 후보에 포함되는 비율을 점점 늘린다.
+ - 서비스 목록에서 빠진 인스턴스의 상태는 PeakEwmaLoadBalancer가 remove로 제거한다.
+ */
+@Component
+@Slf4j
+public class InstanceStatsRegistry {
+    MeterRegistry meterRegistry;
+
+    private final long decayNanos;
+    private final double penaltyNanos;
+    private final int consecutiveFailures;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final long slowStartNanos;
+
+    // 시각(System.nanoTime)과 난수 (테스트에서는 가상 시각과 seed를 고정한 난수를 사용)
+    private final LongSupplier ticker;
+    private final Supplier<Random> random;
+
+    private final ConcurrentHashMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InstanceStatsRegistry(Environment env, MeterRegistry meterRegistry) {
+        this(env, meterRegistry, System::nanoTime, ThreadLocalRandom::current);
+    }
+
+    InstanceStatsRegistry(Environment env, MeterRegistry meterRegistry, LongSupplier ticker, Supplier<Random> random) {
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+        this.random = random;
+        this.decayNanos = duration(env, "gateway.loadbalancer.decay-time", Duration.ofSeconds(10));
+        this.penaltyNanos = duration(env, "gateway.loadbalancer.unsampled-penalty", Duration.ofMillis(50));
+        this.consecutiveFailures = env.getProperty("gateway.loadbalancer.ejection.consecutive-failures", Integer.class, 5);
+        this.baseEjectionNanos = duration(env, "gateway.loadbalancer.ejection.base-time", Duration.ofSeconds(30));
+        this.maxEjectionNanos = duration(env, "gateway.loadbalancer.ejection.max-time", Duration.ofMinutes(5));
+        this.slowStartNanos = duration(env, "gateway.loadbalancer.slow-start", Duration.ofSeconds(30));
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        String instanceId = instanceId(instance);
+        InstanceStats instanceStats = stats.get(instanceId);
+        if (instanceStats == null)
+            instanceStats = stats.computeIfAbsent(instanceId, InstanceStats::new);
+        return instanceStats;
+    }
+
+    // 제외되지 않았고, slow start 중이면 가중치 비율만큼만 후보로 사용
+    public boolean isAvailable(ServiceInstance instance, long now) {
+        InstanceStats instanceStats = stats(instance);
+        if (instanceStats.isEjected(now))
+            return false;
+
+        double weight = instanceStats.weight(now, slowStartNanos);
+        return weight >= 1.0 || random.get().nextDouble() < weight;
+    }
+
+    public double cost(ServiceInstance instance) {
+        InstanceStats instanceStats = stats(instance);
+        return instanceStats.latencyNanos(penaltyNanos) * (instanceStats.getOutstanding() + 1);
+    }
+
+    public void onStart(ServiceInstance instance) {
+        stats(instance).start();
+    }
+
+    // 요청이 끝나면 처리 중인 요청 수를 줄이고 응답 시간과 성공 여부를 반영
+    // 취소된 요청(클라이언트 연결 종료 등)은 응답 시간을 알 수 없으므로 처리 중인 요청 수만 줄인다.
+    // 요청 중에 서비스 목록에서 빠져 상태가 제거된 인스턴스는 다시 만들지 않는다.
+    public void onComplete(ServiceInstance instance, long elapsedNanos, Outcome outcome) {
+        InstanceStats instanceStats = stats.get(instanceId(instance));
+        if (instanceStats == null)
+            return;
+        instanceStats.finish();
+        if (outcome == Outcome.CANCELLED)
+            return;
+
+        long now = now();
+        instanceStats.observe(elapsedNanos, now, decayNanos);
+
+        if (outcome == Outcome.SUCCESS) {
+            instanceStats.success();
+        } else if (instanceStats.failure(consecutiveFailures, baseEjectionNanos, maxEjectionNanos, now)) {
+            log.warn("Instance ejected from load balancing: service={}, instance={}", instance.getServiceId(),
+                    instanceStats.getInstanceId());
+            meterRegistry.counter("gateway.loadbalancer.ejections",
+                    "service", String.valueOf(instance.getServiceId())).increment();
+        }
+    }
+
+    void remove(String instanceId) {
+        if (stats.remove(instanceId) != null)
+            log.debug("Instance stats removed: instance={}", instanceId);
+    }
+
+    long now() {
+        return ticker.getAsLong();
+    }
+
+    Random random() {
+        return random.get();
+    }
+
+    // Eureka 인스턴스는 instanceId가 있고, 없으면 host:port로 구분
+    static String instanceId(ServiceInstance instance) {
+        String instanceId = instance.getInstanceId();
+        return instanceId != null ? instanceId : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static long duration(Environment env, String key, Duration defaultValue) {
+        return env.getProperty(key, Duration.class, defaultValue).toNanos();
+    }
+
+    public enum Outcome {
+        SUCCESS, FAILURE, CANCELLED;
+
+        // 5xx 응답이나 연결 실패/타임아웃은 실패
+        public static Outcome of(SignalType signal, Integer status) {
+            if (signal == SignalType.CANCEL)
+                return CANCELLED;
+            if (signal == SignalType.ON_ERROR)
+                return FAILURE;
+            return status != null && status >= 500 ? FAILURE : SUCCESS;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.apigatewayservice.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// 모든 lb:// 라우트에 PeakEwmaLoadBalancer를 사용
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
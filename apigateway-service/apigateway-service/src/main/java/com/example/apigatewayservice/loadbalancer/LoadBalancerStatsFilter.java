@@ -0,0 +1,58 @@
+package com.example.apigatewayservice.loadbalancer;
+
+import com.example.apigatewayservice.loadbalancer.InstanceStatsRegistry.Outcome;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/*
+ReactiveLoadBalancerClientFilter가 인스턴스를 선택한 직후 실행되어, 선택된 인스턴스의 처리 중인 요청 수와 응답 시간을 기록하는 Global Filter
+ - 5xx 응답이나 연결 실패/타임아웃은 실패로 기록 (연속 실패 시 인스턴스 제외)
+ - 연결을 계속 유지하는 라우트(metadata streaming: true, SSE 등)는 연결 시간이 응답 시간으로 기록되지 않도록 제외
+ */
+@Component
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+    private static final String STREAMING_METADATA = "streaming";
+
+    InstanceStatsRegistry statsRegistry;
+
+    public LoadBalancerStatsFilter(InstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer() || isStreaming(exchange))
+            return chain.filter(exchange);
+
+        ServiceInstance instance = lbResponse.getServer();
+        statsRegistry.onStart(instance);
+        long start = System.nanoTime();
+
+        return chain.filter(exchange)
+                .doFinally(signal -> statsRegistry.onComplete(instance, System.nanoTime() - start,
+                        Outcome.of(signal, exchange.getResponse().getRawStatusCode())));
+    }
+
+    private static boolean isStreaming(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null && Boolean.parseBoolean(String.valueOf(route.getMetadata().get(STREAMING_METADATA)));
+    }
+
+    // HedgingFilter(LOAD_BALANCER_CLIENT_FILTER_ORDER + 1)를 사용하는 라우트는 HedgingFilter가 요청마다 직접 기록하므로 그 다음에 실행
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 2;
+    }
+}
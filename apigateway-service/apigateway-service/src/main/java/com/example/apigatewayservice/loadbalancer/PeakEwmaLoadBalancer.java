@@ -0,0 +1,109 @@
+package com.example.apigatewayservice.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/*
+응답 시간과 처리 중인 요청 수를 기준으로 인스턴스를 선택하는 Load Balancer (기본 RoundRobinLoadBalancer 대체)
+1. 연속 실패로 제외(ejection)된 인스턴스를 후보에서 뺀다. (slow start 중인 인스턴스는 일부 요청에서만 후보에 포함,
+   후보가 하나도 없으면 전체를 후보로 사용)
+2. 후보 중 임의로 두 개를 고르고 비용(InstanceStatsRegistry.cost)이 낮은 쪽을 선택한다. (power of two choices)
+   항상 가장 비용이 낮은 인스턴스를 고르면 여러 Gateway 인스턴스가 같은 인스턴스로 몰리므로 두 개 중에서만 비교한다.
+서비스 목록에서 빠진 인스턴스(scale-in, 재배포 등)는 InstanceStatsRegistry에서 상태를 제거한다.
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final InstanceStatsRegistry statsRegistry;
+
+    // 마지막으로 받은 서비스 목록의 instanceId
+    private volatile Set<String> knownInstanceIds = Set.of();
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, InstanceStatsRegistry statsRegistry) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+    }
+
+    // ReactorLoadBalancer.choose가 raw type(Request)으로 선언되어 있어 Request<?>로는 override할 수 없다.
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (supplier instanceof SelectedInstanceCallback && response.hasServer())
+                ((SelectedInstanceCallback) supplier).selectedServiceInstance(response.getServer());
+            return response;
+        });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        forgetRemovedInstances(instances);
+        if (instances.isEmpty())
+            return new EmptyResponse();
+        if (instances.size() == 1)
+            return new DefaultResponse(instances.get(0));
+
+        long now = statsRegistry.now();
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (statsRegistry.isAvailable(instance, now))
+                candidates.add(instance);
+        }
+
+        // 모든 인스턴스가 제외된 경우에는 요청을 모두 실패시키지 않도록 전체를 후보로 사용
+        if (candidates.isEmpty()) {
+            log.debug("No available instance for {}, using all {} instances", serviceId, instances.size());
+            candidates = instances;
+        }
+        if (candidates.size() == 1)
+            return new DefaultResponse(candidates.get(0));
+
+        Random random = statsRegistry.random();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first)
+            second++;
+
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(statsRegistry.cost(a) <= statsRegistry.cost(b) ? a : b);
+    }
+
+    // 서비스 목록이 바뀌었을 때만 이전 목록에는 있고 새 목록에는 없는 인스턴스의 상태를 제거
+    private void forgetRemovedInstances(List<ServiceInstance> instances) {
+        Set<String> known = knownInstanceIds;
+        if (known.size() == instances.size() && instances.stream()
+                .allMatch(instance -> known.contains(InstanceStatsRegistry.instanceId(instance))))
+            return;
+
+        Set<String> current = new HashSet<>();
+        instances.forEach(instance -> current.add(InstanceStatsRegistry.instanceId(instance)));
+        knownInstanceIds = current;
+        for (String instanceId : known) {
+            if (!current.contains(instanceId))
+                statsRegistry.remove(instanceId);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.apigatewayservice.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/*
+서비스별 LoadBalancer 설정 (LoadBalancerClientFactory가 서비스마다 만드는 자식 컨텍스트에서 사용)
+메인 컨텍스트에 등록되지 않도록 @Configuration을 붙이지 않고 LoadBalancerConfig의 @LoadBalancerClients로만 지정한다.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> peakEwmaLoadBalancer(Environment env,
+                                                                     LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                     InstanceStatsRegistry statsRegistry) {
+        String serviceId = env.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, statsRegistry);
+    }
+}
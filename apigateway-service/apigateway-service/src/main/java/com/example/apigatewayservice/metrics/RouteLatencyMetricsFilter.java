@@ -0,0 +1,107 @@
+package com.example.apigatewayservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/*
+라우트, 응답 상태 코드, 요청을 처리한 인스턴스별 응답 시간을 gateway.route.latency 히스토그램으로 기록하는 Global Filter.
+/actuator/prometheus에서 히스토그램 bucket으로 노출되어 라우트별 p50/p99 등을 계산할 수 있다.
+요청마다 문자열이나 태그 목록을 만들지 않도록 Timer는 라우트 -> 인스턴스 -> 상태 코드 순서로 미리 찾아둔 뒤 재사용한다.
+ */
+@Component
+public class RouteLatencyMetricsFilter implements GlobalFilter, Ordered {
+    private static final String METRIC_NAME = "gateway.route.latency";
+    // 상태 코드를 알 수 없는 경우(연결 실패, 취소 등) 사용하는 인덱스
+    private static final int UNKNOWN_STATUS = 0;
+    private static final int MAX_STATUS = 600;
+
+    MeterRegistry meterRegistry;
+
+    // 라우트 id -> 인스턴스 -> 상태 코드별 Timer
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicReferenceArray<Timer>>> timers =
+            new ConcurrentHashMap<>();
+
+    public RouteLatencyMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+
+        return chain.filter(exchange)
+                .doFinally(signal -> record(exchange, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, long elapsedNanos) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "unmatched";
+
+        Integer rawStatus = exchange.getResponse().getRawStatusCode();
+        int status = rawStatus != null && rawStatus > 0 && rawStatus < MAX_STATUS ? rawStatus : UNKNOWN_STATUS;
+
+        timer(routeId, instance(exchange), status).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Load Balancer가 선택한 인스턴스 id (lb:// 라우트가 아니면 요청한 host:port)
+    private static String instance(ServerWebExchange exchange) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse != null && lbResponse.hasServer())
+            return lbResponse.getServer().getInstanceId();
+
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        return requestUrl != null ? requestUrl.getAuthority() : "none";
+    }
+
+    private Timer timer(String routeId, String instance, int status) {
+        ConcurrentHashMap<String, AtomicReferenceArray<Timer>> byInstance = timers.get(routeId);
+        if (byInstance == null)
+            byInstance = timers.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>());
+
+        AtomicReferenceArray<Timer> byStatus = byInstance.get(instance);
+        if (byStatus == null)
+            byStatus = byInstance.computeIfAbsent(instance, id -> new AtomicReferenceArray<>(MAX_STATUS));
+
+        Timer timer = byStatus.get(status);
+        if (timer == null) {
+            // 같은 태그로 등록하면 MeterRegistry가 기존 Timer를 반환하므로 동시에 생성되어도 안전하다.
+            timer = Timer.builder(METRIC_NAME)
+                    .description("Gateway request latency by route, upstream instance and status")
+                    .tag("route", routeId)
+                    .tag("instance", instance)
+                    .tag("status", status == UNKNOWN_STATUS ? "UNKNOWN" : String.valueOf(status))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+            byStatus.set(status, timer);
+        }
+
+        return timer;
+    }
+
+    // 다른 Global Filter와 라우트 필터를 모두 포함한 시간을 측정하도록 가장 먼저 실행
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
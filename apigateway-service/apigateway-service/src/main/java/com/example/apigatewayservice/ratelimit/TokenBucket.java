@@ -0,0 +1,38 @@
+package com.example.apigatewayservice.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+잠금 없이 동작하는 토큰 버킷.
+남은 토큰 수를 주기적으로 채우는 대신 "버킷이 가득 차는 시각"(theoretical arrival time) 하나만 AtomicLong으로 저장하고
+요청이 들어올 때 현재 시각과 비교하여 토큰 수를 계산한다. (GCRA, 요청 시점에 lazy refill)
+  - 토큰 1개가 채워지는 간격: emissionNanos = 1초 / replenishRate
+  - 버킷이 비어 있을수록 도달 시각이 현재보다 미래에 있으며, 미래로 burstCapacity * emissionNanos 이상 밀리면 거절
+ */
+public class TokenBucket {
+    private final AtomicLong arrivalTime;
+
+    public TokenBucket(long now) {
+        this.arrivalTime = new AtomicLong(now);
+    }
+
+    /*
+    토큰 1개를 사용한다.
+    반환값이 0 이상이면 허용되었으며 남은 토큰 수, 음수이면 거절되었으며 절댓값은 다음 토큰까지 남은 시간(nanos)
+     */
+    public long tryAcquire(long emissionNanos, long burstCapacity, long now) {
+        long capacityNanos = emissionNanos * burstCapacity;
+
+        while (true) {
+            long current = arrivalTime.get();
+            long next = Math.max(current, now) + emissionNanos;
+            long debt = next - now;
+
+            if (debt > capacityNanos)
+                return -(debt - capacityNanos);
+
+            if (arrivalTime.compareAndSet(current, next))
+                return (capacityNanos - debt) / emissionNanos;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.apigatewayservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/*
+사용자(또는 IP)와 라우트별 TokenBucket 저장소. Redis 없이 Gateway 인스턴스 메모리에 저장한다.
+키 개수는 max-keys로 제한하고 일정 시간 사용되지 않은 버킷은 제거한다.
+제거된 버킷은 다음 요청에서 가득 찬 상태로 다시 만들어지므로, idle-timeout은 버킷이 가득 차는 시간보다 길게 설정한다.
+ */
+@Component
+public class TokenBuckets {
+    private final Cache<String, TokenBucket> buckets;
+
+    @Autowired
+    public TokenBuckets(Environment env, MeterRegistry meterRegistry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(env.getProperty("gateway.rate-limit.max-keys", Long.class, 100_000L))
+                .expireAfterAccess(env.getProperty("gateway.rate-limit.idle-timeout", Duration.class,
+                        Duration.ofMinutes(5)))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "gateway.rateLimitBuckets");
+    }
+
+    // 반환값은 TokenBucket.tryAcquire() 참고
+    public long tryAcquire(String key, long emissionNanos, long burstCapacity) {
+        long now = System.nanoTime();
+        return buckets.get(key, k -> new TokenBucket(now)).tryAcquire(emissionNanos, burstCapacity, now);
+    }
+}
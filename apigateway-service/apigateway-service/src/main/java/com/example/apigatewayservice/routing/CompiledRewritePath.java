@@ -0,0 +1,59 @@
+package com.example.apigatewayservice.routing;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+RewritePath의 정규식과 치환 문자열을 라우트 생성 시 한 번만 해석해 두는 경로 변환기
+RewritePath는 요청마다 String.replaceAll(regexp, replacement)로 정규식을 다시 컴파일한다.
+ - "/prefix/(?<name>.*)" -> "/new/${name}" 형태(고정 문자열 + 나머지 전체)는 정규식 없이 문자열 연산으로 변환
+ - 그 외 정규식은 미리 컴파일한 Pattern으로 변환 (결과는 RewritePath와 같다)
+ */
+public class CompiledRewritePath {
+    // 고정 문자열 + (?<name>.*) 형태의 정규식
+    private static final Pattern PREFIX_REGEXP = Pattern.compile("^([A-Za-z0-9_\\-/]*)\\(\\?<([A-Za-z][A-Za-z0-9]*)>\\.\\*\\)$");
+
+    private final Pattern pattern;
+    private final String replacement;
+
+    // 문자열 연산으로 변환할 수 있는 경우의 고정 문자열 (없으면 null)
+    private final String prefix;
+    private final String replacementPrefix;
+
+    public CompiledRewritePath(String regexp, String replacement) {
+        // yml에서 $를 $\로 이스케이프하므로 RewritePath와 같이 되돌린다.
+        this.replacement = replacement.replace("$\\", "$");
+        this.pattern = Pattern.compile(regexp);
+
+        String prefix = null;
+        String replacementPrefix = null;
+        Matcher matcher = PREFIX_REGEXP.matcher(regexp);
+        if (matcher.matches()) {
+            String group = "${" + matcher.group(2) + "}";
+            if (this.replacement.endsWith(group)) {
+                String head = this.replacement.substring(0, this.replacement.length() - group.length());
+                if (head.indexOf('$') < 0 && head.indexOf('\\') < 0) {
+                    prefix = matcher.group(1);
+                    replacementPrefix = head;
+                }
+            }
+        }
+        this.prefix = prefix;
+        this.replacementPrefix = replacementPrefix;
+    }
+
+    public String rewrite(String path) {
+        if (prefix == null)
+            return pattern.matcher(path).replaceAll(replacement);
+
+        // replaceAll과 같이 처음 일치하는 위치부터 끝까지를 치환 (.*는 경로의 나머지 전체와 일치)
+        int index = path.indexOf(prefix);
+        if (index < 0)
+            return path;
+        return path.substring(0, index) + replacementPrefix + path.substring(index + prefix.length());
+    }
+
+    public boolean isPrefixRewrite() {
+        return prefix != null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.apigatewayservice.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/*
+요청에 맞는 라우트를 찾는 RoutePredicateHandlerMapping 대체
+기본 구현은 모든 라우트의 predicate를 정의 순서대로 하나씩 실행하므로 라우트 수에 비례해 비용이 늘어난다.
+RouteMatchTable로 Path/Method 조건을 만족할 수 있는 라우트만 고른 뒤, 그 라우트들의 predicate만 순서대로 실행한다.
+(predicate를 그대로 실행하므로 경로 변수 등 exchange 속성은 기본 구현과 같게 설정된다.)
+라우트가 갱신(/actuator/gateway/refresh, busrefresh)되면 테이블을 다시 만든다.
+ */
+@Slf4j
+public class CompiledRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator routeDefinitionLocator;
+
+    private volatile Mono<RouteMatchTable> table;
+
+    public CompiledRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                                RouteDefinitionLocator routeDefinitionLocator,
+                                                GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+        this.table = compile();
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (event.isSuccess())
+            this.table = compile();
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        return table.flatMap(compiled -> Flux
+                        .fromIterable(compiled.candidates(request.getMethod(), request.getURI().getRawPath()))
+                        .concatMap(route -> Mono.just(route)
+                                .filterWhen(r -> {
+                                    exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, r.getId());
+                                    return r.getPredicate().apply(exchange);
+                                })
+                                .doOnError(e -> log.error("Error applying predicate for route: {}", route.getId(), e))
+                                .onErrorResume(e -> Mono.empty()))
+                        .next())
+                .map(route -> {
+                    validateRoute(route, exchange);
+                    return route;
+                });
+    }
+
+    // 라우트를 처음 조회할 때 한 번 만들고 재사용
+    private Mono<RouteMatchTable> compile() {
+        return Mono.zip(routeLocator.getRoutes().collectList(),
+                        routeDefinitionLocator.getRouteDefinitions().collectList())
+                .map(tuple -> {
+                    try {
+                        RouteMatchTable compiled = RouteMatchTable.compile(tuple.getT1(), tuple.getT2());
+                        log.info("Compiled route match table: {} routes", compiled.size());
+                        return compiled;
+                    } catch (RuntimeException ex) {
+                        log.error("Failed to compile route match table, matching routes linearly", ex);
+                        return RouteMatchTable.linear(tuple.getT1());
+                    }
+                })
+                .cache();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.apigatewayservice.routing;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+라우트의 Path, Method 조건을 미리 컴파일한 라우트 조회 테이블
+ - Path 패턴은 경로 segment 단위의 trie로 만들고, Method 조건은 라우트별 bit mask로 만든다.
+ - 요청 경로로 trie를 한 번 탐색해 조건을 만족할 수 있는 라우트만 후보로 반환한다. (라우트 정의 순서 유지)
+ - Path, Method 외의 조건이 있거나 해석할 수 없는 라우트는 항상 후보에 포함한다.
+후보는 Path/Method 조건을 만족할 "가능성이 있는" 라우트이므로 실제 일치 여부는 라우트의 predicate로 다시 확인한다.
+(CompiledRoutePredicateHandlerMapping)
+ */
+public class RouteMatchTable {
+    private static final int ALL_METHODS = -1;
+
+    private final List<Route> routes;
+    private final int[] methodMasks;
+    private final Node root = new Node();
+    // trie로 표현할 수 없어 항상 후보에 포함되는 라우트
+    private final BitSet alwaysCandidates = new BitSet();
+
+    private RouteMatchTable(List<Route> routes) {
+        this.routes = routes;
+        this.methodMasks = new int[routes.size()];
+        Arrays.fill(methodMasks, ALL_METHODS);
+    }
+
+    // routes는 RouteLocator의 라우트 순서, definitions는 그 라우트들의 정의
+    // 라우트와 정의는 같은 순서로 만들어지므로 순서대로 id를 비교해 짝을 찾는다.
+    public static RouteMatchTable compile(List<Route> routes, List<RouteDefinition> definitions) {
+        RouteMatchTable table = new RouteMatchTable(new ArrayList<>(routes));
+
+        int definitionIndex = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            RouteDefinition definition = null;
+            for (int j = definitionIndex; j < definitions.size(); j++) {
+                if (definitions.get(j).getId().equals(route.getId())) {
+                    definition = definitions.get(j);
+                    definitionIndex = j + 1;
+                    break;
+                }
+            }
+
+            if (definition == null || !table.index(i, definition))
+                table.alwaysCandidates.set(i);
+        }
+        return table;
+    }
+
+    // 정의가 없는 라우트(Java DSL 등)는 모두 후보로 사용
+    public static RouteMatchTable linear(List<Route> routes) {
+        RouteMatchTable table = new RouteMatchTable(new ArrayList<>(routes));
+        table.alwaysCandidates.set(0, routes.size());
+        return table;
+    }
+
+    public List<Route> candidates(HttpMethod method, String rawPath) {
+        List<String> segments = segments(rawPath);
+
+        BitSet matched = (BitSet) alwaysCandidates.clone();
+        collect(root, segments, 0, matched);
+
+        int methodBit = method != null ? 1 << method.ordinal() : ALL_METHODS;
+        List<Route> candidates = new ArrayList<>(Math.min(matched.cardinality(), 8));
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            if ((methodMasks[i] & methodBit) != 0)
+                candidates.add(routes.get(i));
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    // Path, Method 조건만 있는 라우트를 trie에 등록. 등록할 수 없으면 false
+    private boolean index(int routeIndex, RouteDefinition definition) {
+        List<String> patterns = new ArrayList<>();
+        int methodMask = ALL_METHODS;
+
+        for (PredicateDefinition predicate : definition.getPredicates()) {
+            if ("Path".equals(predicate.getName())) {
+                // 한 라우트에 Path 조건이 여러 개이면 모두 만족해야 하므로 trie로 표현하지 않는다.
+                if (!patterns.isEmpty())
+                    return false;
+                for (String value : predicate.getArgs().values()) {
+                    // 마지막 인자는 matchTrailingSlash 여부일 수 있음
+                    if (!"true".equals(value) && !"false".equals(value))
+                        patterns.add(value);
+                }
+            } else if ("Method".equals(predicate.getName())) {
+                int mask = 0;
+                for (String value : predicate.getArgs().values()) {
+                    HttpMethod httpMethod = HttpMethod.resolve(value.trim().toUpperCase());
+                    if (httpMethod == null)
+                        return false;
+                    mask |= 1 << httpMethod.ordinal();
+                }
+                methodMask &= mask;
+            } else {
+                return false;
+            }
+        }
+
+        if (patterns.isEmpty()) {
+            // Path 조건이 없으면 모든 경로가 후보
+            root.tail.set(routeIndex);
+        } else {
+            for (String pattern : patterns) {
+                if (!insert(pattern.trim(), routeIndex))
+                    return false;
+            }
+        }
+        methodMasks[routeIndex] = methodMask;
+        return true;
+    }
+
+    private boolean insert(String pattern, int routeIndex) {
+        List<String> segments = segments(pattern);
+        Node node = root;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.equals("**") || segment.startsWith("{*")) {
+                // 나머지 경로 전체와 일치하는 패턴은 마지막 segment에만 올 수 있다.
+                if (i != segments.size() - 1)
+                    return false;
+                node.tail.set(routeIndex);
+                return true;
+            }
+
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                // 변수, 와일드카드가 포함된 segment는 어떤 값과도 일치할 수 있는 것으로 처리
+                if (node.wildcard == null)
+                    node.wildcard = new Node();
+                node = node.wildcard;
+            } else {
+                node = node.literals.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.terminal.set(routeIndex);
+        return true;
+    }
+
+    private static void collect(Node node, List<String> segments, int index, BitSet matched) {
+        matched.or(node.tail);
+        if (index == segments.size()) {
+            matched.or(node.terminal);
+            return;
+        }
+
+        Node literal = node.literals.get(segments.get(index));
+        if (literal != null)
+            collect(literal, segments, index + 1, matched);
+        if (node.wildcard != null)
+            collect(node.wildcard, segments, index + 1, matched);
+    }
+
+    // PathPattern과 같이 디코딩된 segment 값으로 비교
+    // 끝의 / 는 무시 (matchTrailingSlash), 중간의 빈 segment(//)는 *와 일치할 수 있으므로 그대로 둔다.
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (PathContainer.Element element : PathContainer.parsePath(path).elements()) {
+            if (element instanceof PathContainer.PathSegment)
+                segments.add(((PathContainer.PathSegment) element).valueToMatch());
+        }
+        if (!segments.isEmpty() && segments.get(segments.size() - 1).isEmpty())
+            segments.remove(segments.size() - 1);
+        return segments;
+    }
+
+    private static class Node {
+        final Map<String, Node> literals = new HashMap<>();
+        Node wildcard;
+        // 이 위치에서 끝나는 패턴의 라우트
+        final BitSet terminal = new BitSet();
+        // 이 위치 이후 어떤 경로와도 일치하는 패턴(**)의 라우트
+        final BitSet tail = new BitSet();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.apigatewayservice.routing;
+
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// 기본 RoutePredicateHandlerMapping 대신 CompiledRoutePredicateHandlerMapping을 사용
+@Configuration
+public class RoutingConfig {
+    @Bean
+    public RoutePredicateHandlerMapping routePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                                                     RouteLocator routeLocator,
+                                                                     RouteDefinitionLocator routeDefinitionLocator,
+                                                                     GlobalCorsProperties globalCorsProperties,
+                                                                     Environment environment) {
+        return new CompiledRoutePredicateHandlerMapping(webHandler, routeLocator, routeDefinitionLocator,
+                globalCorsProperties, environment);
+    }
+}
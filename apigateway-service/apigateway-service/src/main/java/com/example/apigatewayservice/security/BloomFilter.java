@@ -0,0 +1,76 @@
+package com.example.apigatewayservice.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+문자열 key를 위한 Bloom filter (RevokedTokens 전용)
+mightContain()이 false이면 key는 확실히 추가되지 않은 것이고, true이면 실제 집합에서 다시 확인해야 한다.
+key를 제거할 수 없으므로 만료된 key를 정리하려면 새로 만들어야 한다.
+seed로 같은 filter 안에서 서로 다른 종류의 key(토큰 id, subject)를 구분한다.
+ */
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        // 최적 bit 수 m = -n ln(p) / (ln 2)^2, hash 함수 수 k = m / n * ln 2
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) >>> 6));
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void put(long seed, String key) {
+        long hash = hash(seed, key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + (long) i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0)
+                    break;
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(long seed, String key) {
+        long hash = hash(seed, key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + (long) i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    // FNV-1a 64 + 마지막 mix (murmur3 fmix64). 두 32bit 절반을 서로 다른 hash 함수로 사용한다. (Kirsch-Mitzenmacher)
+    private static long hash(long seed, String key) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
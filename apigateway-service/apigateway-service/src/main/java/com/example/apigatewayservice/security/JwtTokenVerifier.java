@@ -0,0 +1,161 @@
+package com.example.apigatewayservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.WeakKeyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+Gateway에서 JWT를 검증하는 컴포넌트.
+- 서명 키와 JwtParser는 token.secret으로 한 번만 생성하고, 설정이 갱신(/actuator/refresh, busrefresh)되어 token.secret이 바뀐 경우에만 다시 생성한다.
+- 검증에 성공한 토큰은 만료 시각(exp)까지 캐싱하여 같은 토큰으로 들어오는 요청은 서명 검증(HS512)을 다시 하지 않는다.
+  캐시 키는 토큰의 SHA-256 digest이므로 토큰 원문은 캐시(힙 덤프, 캐시 지표)에 남지 않는다.
+  (SHA-256 한 번은 파싱, Base64 디코딩, HMAC-SHA512 검증을 포함한 서명 검증보다 훨씬 적은 비용이다.)
+ */
+@Component
+@Slf4j
+public class JwtTokenVerifier {
+    Environment env;
+
+    private volatile JwtParser jwtParser;
+
+    // 검증된 토큰의 SHA-256 digest -> subject, 만료 시각
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    @Autowired
+    public JwtTokenVerifier(Environment env, MeterRegistry meterRegistry) {
+        this.env = env;
+        this.jwtParser = buildParser();
+
+        // exp가 없거나 아주 먼 토큰도 max-ttl이 지나면 다시 검증한다.
+        long maxTtlNanos = env.getProperty("token.cache.max-ttl", Duration.class, Duration.ofMinutes(10)).toNanos();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(env.getProperty("token.cache.max-size", Long.class, 100_000L))
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken verified, long currentTime) {
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(verified.getExpiresAt() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(remaining, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, verified, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "gateway.verifiedTokens");
+    }
+
+    // 캐시를 먼저 확인하고, 없으면 서명을 검증한 뒤 캐싱
+    // 유효하지 않은 토큰이면 null 반환
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty())
+            return null;
+
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis()))
+            return cached;
+
+        VerifiedToken verified = parse(token);
+        if (verified != null)
+            verifiedTokens.put(key, verified);
+
+        return verified;
+    }
+
+    // 캐시를 사용하지 않고 서명과 만료 시간을 검증
+    public VerifiedToken parse(String token) {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            log.error("token.secret is not configured");
+            return null;
+        }
+
+        try {
+            // 파싱 대상 JWT 토큰을 Jws(JWT Signature를 포함하는 객체) 객체로 파싱 (서명, exp 검증)
+            Claims claims = parser.parseClaimsJws(token).getBody();
+
+            // JWT subject 값이 존재하지 않거나 빈 문자열인 경우, 해당 JWT는 유효하지 않은 것으로 판단
+            String subject = claims.getSubject();
+            if (subject == null || subject.isEmpty())
+                return null;
+
+            Date expiration = claims.getExpiration();
+            Date issuedAt = claims.getIssuedAt();
+            return new VerifiedToken(subject, expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+                    claims.getId(), issuedAt != null ? issuedAt.getTime() : 0L);
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.error("jwtParser = {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            // 모든 Java 구현은 SHA-256을 제공해야 한다.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // token.secret이 변경되면 JwtParser를 다시 생성하고, 이전 키로 검증된 토큰은 모두 버린다.
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (!event.getKeys().contains("token.secret"))
+            return;
+
+        this.jwtParser = buildParser();
+        verifiedTokens.invalidateAll();
+        log.info("JWT parser rebuilt after token.secret change");
+    }
+
+    private JwtParser buildParser() {
+        String secret = env.getProperty("token.secret");
+        if (secret == null || secret.isEmpty())
+            return null;
+
+        try {
+            // JWT 토큰 서명에 사용될 비밀 키 생성 (HMAC-SHA)
+            return Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                    .build();
+        } catch (WeakKeyException ex) {
+            log.error("token.secret is too short: {}", ex.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.apigatewayservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+user-service가 Spring Cloud Bus로 보낸 토큰 폐기 정보(TokenRevokedEvent)를 보관하고 요청마다 확인하는 저장소.
+- 폐기된 토큰 id(jti)와 subject(사용자의 모든 토큰 폐기)는 폐기 대상 토큰이 모두 만료되는 시각까지만 메모리에 보관한다.
+- 대부분의 요청은 폐기되지 않은 토큰이므로 Bloom filter로 먼저 확인하고, filter가 "있을 수 있음"이라고 한 경우에만 실제 집합을 조회한다.
+  Bloom filter는 만료된 key를 제거할 수 없으므로 rebuild-interval이 지난 뒤 폐기 이벤트가 오거나 expected-insertions를 넘으면 새로 만든다.
+- 요청 처리 중에는 I/O가 없다. 단, 인스턴스가 시작되기 전에 발생한 폐기 이벤트는 받지 못한다.
+ */
+@Component
+@Slf4j
+public class RevokedTokens {
+    private static final long TOKEN_ID_SEED = 0x9e3779b97f4a7c15L;
+    private static final long SUBJECT_SEED = 0xc2b2ae3d27d4eb4fL;
+
+    // 폐기된 토큰 id -> 폐기 정보
+    private final Cache<String, Revocation> byTokenId;
+    // 모든 토큰이 폐기된 사용자 -> 폐기 정보 (revokedAt 이전에 발행된 토큰만 폐기)
+    private final Cache<String, Revocation> bySubject;
+
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final long rebuildIntervalMillis;
+
+    private volatile BloomFilter bloomFilter;
+    // 현재 Bloom filter의 예상 key 수, 추가된 key 수, 다음 재생성 시각 (onRevoked()에서만 변경)
+    private long capacity;
+    private long insertions;
+    private long nextRebuildAt;
+
+    private final Counter rejected;
+
+    @Autowired
+    public RevokedTokens(Environment env, MeterRegistry meterRegistry) {
+        this.expectedInsertions = env.getProperty("gateway.revocation.expected-insertions", Long.class, 100_000L);
+        this.falsePositiveRate = env.getProperty("gateway.revocation.false-positive-rate", Double.class, 0.01);
+        this.rebuildIntervalMillis = env.getProperty("gateway.revocation.rebuild-interval", Duration.class,
+                Duration.ofMinutes(10)).toMillis();
+
+        // 크기 제한으로 제거되면 폐기된 토큰이 다시 유효해지므로 maximumSize는 지정하지 않는다.
+        this.byTokenId = Caffeine.newBuilder().expireAfter(new RevocationExpiry()).build();
+        this.bySubject = Caffeine.newBuilder().expireAfter(new RevocationExpiry()).build();
+
+        this.capacity = expectedInsertions;
+        this.bloomFilter = new BloomFilter(capacity, falsePositiveRate);
+        this.nextRebuildAt = System.currentTimeMillis() + rebuildIntervalMillis;
+
+        this.rejected = Counter.builder("gateway.revocation.rejected")
+                .description("Token checks that found a revoked token")
+                .register(meterRegistry);
+        Gauge.builder("gateway.revocation.entries", this, r -> r.byTokenId.estimatedSize() + r.bySubject.estimatedSize())
+                .register(meterRegistry);
+    }
+
+    // 검증된 토큰이 폐기되었는지 확인
+    public boolean isRevoked(VerifiedToken token) {
+        BloomFilter filter = bloomFilter;
+
+        String tokenId = token.getTokenId();
+        if (tokenId != null && filter.mightContain(TOKEN_ID_SEED, tokenId)
+                && byTokenId.getIfPresent(tokenId) != null) {
+            rejected.increment();
+            return true;
+        }
+
+        if (filter.mightContain(SUBJECT_SEED, token.getSubject())) {
+            Revocation revocation = bySubject.getIfPresent(token.getSubject());
+            // iat는 초 단위이므로 폐기와 같은 초에 발행된 토큰도 폐기된 것으로 판단한다.
+            if (revocation != null && token.getIssuedAt() <= revocation.revokedAt) {
+                rejected.increment();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // 실제 집합에 먼저 추가한 뒤 Bloom filter에 추가 (Bloom filter에 있는 key는 항상 실제 집합에서 찾을 수 있어야 함)
+    // Bloom filter 재생성과 추가가 섞이지 않도록 이벤트는 하나씩 처리한다.
+    @EventListener
+    public synchronized void onRevoked(TokenRevokedEvent event) {
+        long now = System.currentTimeMillis();
+        if (event.getExpiresAt() <= now)
+            return;
+
+        Revocation revocation = new Revocation(event.getRevokedAt(), event.getExpiresAt());
+        if (event.getTokenId() != null) {
+            byTokenId.put(event.getTokenId(), revocation);
+            bloomFilter.put(TOKEN_ID_SEED, event.getTokenId());
+            insertions++;
+        }
+        if (event.getSubject() != null) {
+            // 같은 사용자의 이전 폐기 정보는 더 늦은 폐기 시각으로 대체된다.
+            bySubject.asMap().merge(event.getSubject(), revocation,
+                    (previous, current) -> current.revokedAt >= previous.revokedAt ? current : previous);
+            bloomFilter.put(SUBJECT_SEED, event.getSubject());
+            insertions++;
+        }
+
+        if (insertions > capacity || now >= nextRebuildAt)
+            rebuildBloomFilter(now);
+
+        log.info("Token revoked: tokenId={}, subject={}, origin={}",
+                event.getTokenId(), event.getSubject(), event.getOriginService());
+    }
+
+    // 만료된 폐기 정보를 정리하고 남은 key로 Bloom filter를 다시 만든다.
+    private void rebuildBloomFilter(long now) {
+        byTokenId.cleanUp();
+        bySubject.cleanUp();
+
+        long size = byTokenId.estimatedSize() + bySubject.estimatedSize();
+        long rebuiltCapacity = Math.max(expectedInsertions, size * 2);
+        BloomFilter rebuilt = new BloomFilter(rebuiltCapacity, falsePositiveRate);
+        byTokenId.asMap().keySet().forEach(tokenId -> rebuilt.put(TOKEN_ID_SEED, tokenId));
+        bySubject.asMap().keySet().forEach(subject -> rebuilt.put(SUBJECT_SEED, subject));
+
+        this.bloomFilter = rebuilt;
+        this.capacity = rebuiltCapacity;
+        this.insertions = size;
+        this.nextRebuildAt = now + rebuildIntervalMillis;
+        log.debug("Revocation bloom filter rebuilt: entries={}", size);
+    }
+
+    private static final class Revocation {
+        private final long revokedAt;
+        private final long expiresAt;
+
+        private Revocation(long revokedAt, long expiresAt) {
+            this.revokedAt = revokedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // 폐기 정보는 폐기 대상 토큰이 모두 만료되는 시각(expiresAt)에 제거
+    private static final class RevocationExpiry implements Expiry<String, Revocation> {
+        @Override
+        public long expireAfterCreate(String key, Revocation revocation, long currentTime) {
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(revocation.expiresAt - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Revocation revocation, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, revocation, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Revocation revocation, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.apigatewayservice.security;
+
+import lombok.Getter;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/*
+user-service가 토큰을 폐기했을 때 Spring Cloud Bus(RabbitMQ)로 전달되는 이벤트. (user-service의 TokenRevokedEvent와 같은 이름, 같은 필드)
+tokenId가 있으면 해당 토큰(jti) 하나를, subject가 있으면 revokedAt 이전에 발행된 그 사용자의 모든 토큰을 폐기한다.
+ */
+@Getter
+public class TokenRevokedEvent extends RemoteApplicationEvent {
+    // 폐기할 토큰의 jti
+    private String tokenId;
+    // 모든 토큰을 폐기할 사용자의 userId
+    private String subject;
+    // 폐기 시각(epoch millis)
+    private long revokedAt;
+    // 폐기 정보를 보관해야 하는 시각(epoch millis). 이후에는 폐기 대상 토큰이 모두 만료된다.
+    private long expiresAt;
+
+    // Bus가 메시지를 역직렬화할 때 사용하는 기본 생성자
+    @SuppressWarnings("unused")
+    private TokenRevokedEvent() {
+    }
+
+    public TokenRevokedEvent(Object source, String originService, Destination destination,
+                             String tokenId, String subject, long revokedAt, long expiresAt) {
+        super(source, originService, destination);
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.apigatewayservice.security;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/*
+클라이언트가 보낸 내부 헤더(TrustedHeaders)를 모든 라우트에서 제거하는 Global Filter.
+default-filters의 RemoveRequestHeader는 라우트 필터와 같은 순서 값으로 정렬되어 AuthorizationHeaderFilter보다 늦게 실행될 수 있으므로
+가장 먼저 실행되는 Global Filter로 제거한다.
+ */
+@Component
+public class TrustedHeaderSanitizer implements GlobalFilter, Ordered {
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!containsTrustedHeader(request))
+            return chain.filter(exchange);
+
+        ServerHttpRequest sanitized = request.mutate()
+                .headers(headers -> {
+                    for (String name : TrustedHeaders.ALL)
+                        headers.remove(name);
+                })
+                .build();
+
+        return chain.filter(exchange.mutate().request(sanitized).build());
+    }
+
+    private static boolean containsTrustedHeader(ServerHttpRequest request) {
+        for (String name : TrustedHeaders.ALL) {
+            if (request.getHeaders().containsKey(name))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
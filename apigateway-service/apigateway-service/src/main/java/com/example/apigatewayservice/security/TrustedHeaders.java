@@ -0,0 +1,21 @@
+package com.example.apigatewayservice.security;
+
+/*
+Gateway가 JWT 검증 후 하위 서비스로 전달하는 내부 헤더.
+클라이언트가 같은 이름의 헤더를 보내도 TrustedHeaderSanitizer가 제거하므로
+하위 서비스는 이 값을 Gateway가 검증한 값으로 신뢰할 수 있다.
+ */
+public final class TrustedHeaders {
+    // 검증된 JWT의 subject (userId)
+    public static final String USER_ID = "X-User-Id";
+    // 검증된 JWT의 만료 시각 (epoch millis)
+    public static final String TOKEN_EXPIRES = "X-Token-Expires";
+    // 검증된 JWT의 id (jti). 로그아웃 시 user-service가 이 토큰을 폐기하는 데 사용
+    public static final String TOKEN_ID = "X-Token-Id";
+
+    // TrustedHeaderSanitizer가 클라이언트 요청에서 제거하는 헤더 목록
+    static final String[] ALL = {USER_ID, TOKEN_EXPIRES, TOKEN_ID};
+
+    private TrustedHeaders() {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.apigatewayservice.security;
+
+import lombok.Getter;
+
+/*
+서명과 만료 시간 검증을 통과한 JWT에서 꺼낸 값
+ */
+@Getter
+public class VerifiedToken {
+    // JWT subject (user-service에서 발행한 userId)
+    private final String subject;
+    // 만료 시각(epoch millis). exp 클레임이 없으면 Long.MAX_VALUE
+    private final long expiresAt;
+    // 토큰 id (jti). 이전에 발행된 토큰처럼 jti 클레임이 없으면 null
+    private final String tokenId;
+    // 발행 시각(epoch millis, 초 단위). iat 클레임이 없으면 0
+    private final long issuedAt;
+
+    public VerifiedToken(String subject, long expiresAt, String tokenId, long issuedAt) {
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.tokenId = tokenId;
+        this.issuedAt = issuedAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.apigatewayservice.trace;
+
+import lombok.Getter;
+
+/*
+Gateway를 통과한 요청 1건의 요약 (요청/응답 헤더와 body는 저장하지 않는다.)
+ */
+@Getter
+public class RequestTrace {
+    // 요청 완료 시각 (epoch millis)
+    private final long timestamp;
+    private final String route;
+    private final String method;
+    // 쿼리 문자열은 토큰 등이 포함될 수 있으므로 경로만 저장
+    private final String path;
+    private final String instance;
+    // 응답 상태 코드 (연결 실패, 타임아웃 등으로 알 수 없으면 0)
+    private final int status;
+    private final boolean error;
+    private final long durationMicros;
+
+    public RequestTrace(long timestamp, String route, String method, String path, String instance, int status,
+                        boolean error, long durationMicros) {
+        this.timestamp = timestamp;
+        this.route = route;
+        this.method = method;
+        this.path = path;
+        this.instance = instance;
+        this.status = status;
+        this.error = error;
+        this.durationMicros = durationMicros;
+    }
+}
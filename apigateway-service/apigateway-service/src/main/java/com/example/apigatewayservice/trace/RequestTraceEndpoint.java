@@ -0,0 +1,27 @@
+package com.example.apigatewayservice.trace;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// /actuator/requesttraces: 샘플링된 요청, 라우트별 가장 느린 요청과 최근 오류 요청
+@Component
+@Endpoint(id = "requesttraces")
+public class RequestTraceEndpoint {
+    RequestTraceRepository requestTraceRepository;
+
+    public RequestTraceEndpoint(RequestTraceRepository requestTraceRepository) {
+        this.requestTraceRepository = requestTraceRepository;
+    }
+
+    @ReadOperation
+    public Map<String, Object> traces() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampled", requestTraceRepository.sampled());
+        result.put("routes", requestTraceRepository.byRoute());
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.apigatewayservice.trace;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+// 요청이 끝나면 RequestTraceRepository에 trace를 저장하는 Global Filter
+@Component
+public class RequestTraceFilter implements GlobalFilter, Ordered {
+    RequestTraceRepository requestTraceRepository;
+
+    public RequestTraceFilter(RequestTraceRepository requestTraceRepository) {
+        this.requestTraceRepository = requestTraceRepository;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> record(exchange, signal, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, SignalType signal, long elapsedNanos) {
+        // 클라이언트가 연결을 끊은 요청은 저장하지 않는다.
+        if (signal == SignalType.CANCEL)
+            return;
+
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "unmatched";
+        Integer rawStatus = exchange.getResponse().getRawStatusCode();
+        int status = rawStatus != null ? rawStatus : 0;
+        boolean error = signal == SignalType.ON_ERROR || status >= 500;
+        long durationMicros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+
+        RequestTraceRepository.Decision decision = requestTraceRepository.decide(routeId, durationMicros, error);
+        if (decision == null)
+            return;
+
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        String instance = lbResponse != null && lbResponse.hasServer() ? lbResponse.getServer().getInstanceId() : null;
+
+        requestTraceRepository.add(decision, new RequestTrace(System.currentTimeMillis(), routeId,
+                exchange.getRequest().getMethodValue(), exchange.getRequest().getURI().getRawPath(), instance,
+                status, error, durationMicros));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
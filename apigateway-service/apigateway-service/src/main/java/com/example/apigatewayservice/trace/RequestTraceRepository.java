@@ -0,0 +1,99 @@
+package com.example.apigatewayservice.trace;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+요청 trace 저장소 (InMemoryHttpTraceRepository 대체)
+ - 라우트별 가장 느린 요청 slowest-per-route개(slowest-window 구간별)와 최근 오류 요청 errors-per-route개는 항상 보관
+   라우트는 id로 구분하므로 application.yml의 라우트마다 다른 id를 사용한다.
+ - 그 외 요청은 sample-rate 비율로 골라 전체 공용 링 버퍼(capacity개)에 보관
+모든 저장 공간은 고정 크기이므로 요청이 많아져도 메모리 사용량이 늘어나지 않는다. (라우트 수만큼만 증가)
+ */
+@Component
+public class RequestTraceRepository {
+    private final double sampleRate;
+    private final int slowestPerRoute;
+    private final long slowestWindowMillis;
+    private final int errorsPerRoute;
+
+    private final TraceRing sampled;
+    private final ConcurrentHashMap<String, RouteTraces> routes = new ConcurrentHashMap<>();
+
+    public RequestTraceRepository(Environment env) {
+        this.sampleRate = env.getProperty("gateway.trace.sample-rate", Double.class, 0.01);
+        this.slowestPerRoute = env.getProperty("gateway.trace.slowest-per-route", Integer.class, 10);
+        this.slowestWindowMillis = env.getProperty("gateway.trace.slowest-window", Duration.class, Duration.ofMinutes(1)).toMillis();
+        this.errorsPerRoute = env.getProperty("gateway.trace.errors-per-route", Integer.class, 20);
+        this.sampled = new TraceRing(env.getProperty("gateway.trace.capacity", Integer.class, 1024));
+    }
+
+    // 요청 정보를 trace로 저장해야 하는지 판단 (저장하지 않는 요청은 RequestTrace를 만들지 않기 위함)
+    public Decision decide(String route, long durationMicros, boolean error) {
+        RouteTraces routeTraces = routeTraces(route);
+        boolean slowest = routeTraces.slowest.isCandidate(durationMicros);
+        boolean sample = error || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        return slowest || sample ? new Decision(routeTraces, slowest, sample) : null;
+    }
+
+    public void add(Decision decision, RequestTrace trace) {
+        if (decision.slowest)
+            decision.routeTraces.slowest.offer(trace);
+        if (trace.isError())
+            decision.routeTraces.errors.add(trace);
+        else if (decision.sample)
+            sampled.add(trace);
+    }
+
+    public List<RequestTrace> sampled() {
+        return sampled.snapshot();
+    }
+
+    // 라우트 id -> slowest, errors
+    public Map<String, Map<String, List<RequestTrace>>> byRoute() {
+        Map<String, Map<String, List<RequestTrace>>> result = new LinkedHashMap<>();
+        routes.forEach((route, routeTraces) -> {
+            Map<String, List<RequestTrace>> traces = new LinkedHashMap<>();
+            traces.put("slowest", routeTraces.slowest.snapshot());
+            traces.put("errors", routeTraces.errors.snapshot());
+            result.put(route, traces);
+        });
+        return result;
+    }
+
+    private RouteTraces routeTraces(String route) {
+        RouteTraces routeTraces = routes.get(route);
+        if (routeTraces == null)
+            routeTraces = routes.computeIfAbsent(route, id -> new RouteTraces(slowestPerRoute, slowestWindowMillis, errorsPerRoute));
+        return routeTraces;
+    }
+
+    private static class RouteTraces {
+        final SlowestTraces slowest;
+        final TraceRing errors;
+
+        RouteTraces(int slowestCapacity, long slowestWindowMillis, int errorsCapacity) {
+            this.slowest = new SlowestTraces(slowestCapacity, slowestWindowMillis);
+            this.errors = new TraceRing(errorsCapacity);
+        }
+    }
+
+    public static class Decision {
+        private final RouteTraces routeTraces;
+        private final boolean slowest;
+        private final boolean sample;
+
+        Decision(RouteTraces routeTraces, boolean slowest, boolean sample) {
+            this.routeTraces = routeTraces;
+            this.slowest = slowest;
+            this.sample = sample;
+        }
+    }
+}
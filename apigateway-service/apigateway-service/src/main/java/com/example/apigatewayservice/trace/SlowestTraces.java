@@ -0,0 +1,131 @@
+package com.example.apigatewayservice.trace;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+가장 느린 요청 N개를 시간 구간(window)별로 보관 (라우트 1개당 1개)
+새 요청이 보관 중인 요청 중 가장 빠른 요청보다 느리면 그 칸을 CAS로 교체한다.
+대부분의 요청은 minDurationMicros와 한 번 비교하고 끝나므로 RequestTrace를 만들지 않는다.
+구간이 지나면 새 구간에서 다시 모으고 바로 이전 구간만 함께 보여주므로, 오래전의 느린 요청(cold start 등)이 최근의 느린 요청을 가리지 않는다.
+ */
+public class SlowestTraces {
+    private final int capacity;
+    private final long windowMillis;
+    private final AtomicReference<Window> current;
+
+    public SlowestTraces(int capacity, long windowMillis) {
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.current = new AtomicReference<>(new Window(windowStart(System.currentTimeMillis()), capacity, null));
+    }
+
+    public boolean isCandidate(long durationMicros) {
+        return window().isCandidate(durationMicros);
+    }
+
+    public void offer(RequestTrace trace) {
+        window().offer(trace);
+    }
+
+    // 현재 구간과 이전 구간의 요청 중 느린 순서로 최대 capacity개 반환
+    public List<RequestTrace> snapshot() {
+        Window window = window();
+        List<RequestTrace> traces = new ArrayList<>(capacity * 2);
+        window.addTo(traces);
+        Window previous = window.previous;
+        if (previous != null)
+            previous.addTo(traces);
+        traces.sort(Comparator.comparingLong(RequestTrace::getDurationMicros).reversed());
+        return traces.size() > capacity ? new ArrayList<>(traces.subList(0, capacity)) : traces;
+    }
+
+    // 구간이 지났으면 새 구간으로 교체 (바로 이전 구간만 남기고 그 전 구간은 버림)
+    private Window window() {
+        Window window = current.get();
+        long start = windowStart(System.currentTimeMillis());
+        if (start == window.start)
+            return window;
+
+        window.previous = null;
+        Window next = new Window(start, capacity, start - window.start == windowMillis ? window : null);
+        if (!current.compareAndSet(window, next))
+            return current.get();
+        return next;
+    }
+
+    private long windowStart(long now) {
+        return now - now % windowMillis;
+    }
+
+    private static class Window {
+        final long start;
+        final AtomicReferenceArray<RequestTrace> slots;
+        volatile Window previous;
+        // 보관 중인 요청 중 가장 빠른 요청의 응답 시간 (빈 칸이 있으면 -1)
+        volatile long minDurationMicros = -1;
+
+        Window(long start, int capacity, Window previous) {
+            this.start = start;
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.previous = previous;
+        }
+
+        boolean isCandidate(long durationMicros) {
+            return durationMicros > minDurationMicros;
+        }
+
+        void offer(RequestTrace trace) {
+            while (isCandidate(trace.getDurationMicros())) {
+                int minIndex = -1;
+                RequestTrace min = null;
+                for (int i = 0; i < slots.length(); i++) {
+                    RequestTrace current = slots.get(i);
+                    if (current == null) {
+                        minIndex = i;
+                        min = null;
+                        break;
+                    }
+                    if (min == null || current.getDurationMicros() < min.getDurationMicros()) {
+                        minIndex = i;
+                        min = current;
+                    }
+                }
+
+                if (min != null && min.getDurationMicros() >= trace.getDurationMicros()) {
+                    updateMinDuration();
+                    return;
+                }
+                if (slots.compareAndSet(minIndex, min, trace)) {
+                    updateMinDuration();
+                    return;
+                }
+                // 다른 스레드가 먼저 교체한 경우 다시 시도
+            }
+        }
+
+        private void updateMinDuration() {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < slots.length(); i++) {
+                RequestTrace current = slots.get(i);
+                if (current == null) {
+                    minDurationMicros = -1;
+                    return;
+                }
+                min = Math.min(min, current.getDurationMicros());
+            }
+            minDurationMicros = min;
+        }
+
+        void addTo(List<RequestTrace> traces) {
+            for (int i = 0; i < slots.length(); i++) {
+                RequestTrace trace = slots.get(i);
+                if (trace != null)
+                    traces.add(trace);
+            }
+        }
+    }
+}
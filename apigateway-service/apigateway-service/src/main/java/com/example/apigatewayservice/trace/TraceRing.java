@@ -0,0 +1,37 @@
+package com.example.apigatewayservice.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+고정 크기 링 버퍼 (가득 차면 가장 오래된 항목을 덮어쓴다.)
+쓰기는 위치를 AtomicLong으로 하나씩 받아 해당 칸에 저장하므로 lock을 사용하지 않는다.
+ */
+public class TraceRing {
+    private final AtomicReferenceArray<RequestTrace> slots;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public TraceRing(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(RequestTrace trace) {
+        slots.set((int) (cursor.getAndIncrement() % slots.length()), trace);
+    }
+
+    // 최근 항목부터 반환
+    public List<RequestTrace> snapshot() {
+        long end = cursor.get();
+        int size = (int) Math.min(end, slots.length());
+
+        List<RequestTrace> traces = new ArrayList<>(size);
+        for (long i = end - 1; i >= end - size; i--) {
+            RequestTrace trace = slots.get((int) (i % slots.length()));
+            if (trace != null)
+                traces.add(trace);
+        }
+        return traces;
+    }
+}
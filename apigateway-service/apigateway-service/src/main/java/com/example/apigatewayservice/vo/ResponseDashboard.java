@@ -0,0 +1,24 @@
+package com.example.apigatewayservice.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+import java.util.List;
+
+// 대시보드 조회 결과 (GET /dashboard/{userId})
+// 각 서비스의 응답은 형식을 바꾸지 않고 그대로 전달
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResponseDashboard {
+    // user-service 사용자 정보 (주문 내역 제외)
+    private JsonNode user;
+    // order-service 주문 목록
+    private JsonNode orders;
+    // catalog-service 상품 목록
+    private JsonNode catalogs;
+
+    // 일부 서비스의 응답을 받지 못한 경우 true, 실패한 항목 이름(user, orders, catalogs)
+    private boolean partial;
+    private List<String> failed;
+}
@@ -0,0 +1,228 @@
+package com.example.apigatewayservice.loadbalancer;
+
+import com.example.apigatewayservice.loadbalancer.InstanceStatsRegistry.Outcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.core.convert.support.ConfigurableConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+가상 시각(ticker)과 seed를 고정한 난수로 PeakEwmaLoadBalancer의 인스턴스 선택을 시뮬레이션
+인스턴스마다 응답 시간과 성공 여부를 정해 두고, LoadBalancerStatsFilter와 같은 순서로 choose -> onStart -> onComplete를 호출한다.
+실제 시간을 기다리지 않으므로 테스트 장비의 부하와 관계없이 항상 같은 결과가 나온다.
+ */
+class PeakEwmaLoadBalancerSimulationTest {
+    private static final String SERVICE_ID = "simulation-service";
+
+    private long now;
+
+    @Test
+    void slowInstanceReceivesLittleTraffic() {
+        InstanceStatsRegistry registry = registry(new MockEnvironment());
+        PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(null, SERVICE_ID, registry);
+
+        Backend fast1 = new Backend("fast-1", Duration.ofMillis(5));
+        Backend fast2 = new Backend("fast-2", Duration.ofMillis(5));
+        // GC pause 등으로 응답이 느린 인스턴스
+        Backend slow = new Backend("slow", Duration.ofMillis(100));
+        Simulation simulation = new Simulation(loadBalancer, registry, fast1, fast2, slow);
+
+        simulation.run(600, 16);
+
+        // Round Robin이었다면 1/3(200건)이 느린 인스턴스로 간다.
+        assertThat(slow.requests).isLessThan(40);
+        assertThat(fast1.requests + fast2.requests).isGreaterThan(560);
+    }
+
+    @Test
+    void failingInstanceIsEjectedAndSlowlyReadmitted() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("gateway.loadbalancer.ejection.consecutive-failures", "3")
+                .withProperty("gateway.loadbalancer.ejection.base-time", "1s")
+                .withProperty("gateway.loadbalancer.slow-start", "600ms");
+        InstanceStatsRegistry registry = registry(env);
+        PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(null, SERVICE_ID, registry);
+
+        Backend healthy1 = new Backend("healthy-1", Duration.ofMillis(5));
+        Backend healthy2 = new Backend("healthy-2", Duration.ofMillis(5));
+        Backend failing = new Backend("failing", Duration.ofMillis(5));
+        failing.failing = true;
+        Simulation simulation = new Simulation(loadBalancer, registry, healthy1, healthy2, failing);
+
+        // 1. 연속 3번 실패하면 제외되어 더 이상 요청을 받지 않는다. (이미 보낸 동시 요청 수만큼은 더 받을 수 있음)
+        simulation.run(100, 4);
+
+        assertThat(failing.requests).isBetween(3, 3 + 4);
+        assertThat(registry.stats(failing.instance).isEjected(now)).isTrue();
+
+        // 제외 시간(1s) 동안은 요청을 받지 않는다.
+        int beforeEjectionEnds = failing.requests;
+        now += Duration.ofMillis(500).toNanos();
+        simulation.run(50, 1);
+        assertThat(failing.requests).isEqualTo(beforeEjectionEnds);
+
+        // 2. 인스턴스가 복구되고 제외 시간이 지나면 slow start로 다시 투입된다. (제외가 끝난 뒤 첫 선택 시점부터)
+        failing.failing = false;
+        now += Duration.ofMillis(500).toNanos();
+        long readmitted = now;
+
+        List<Pick> picks = simulation.runFor(Duration.ofMillis(900), failing);
+
+        double earlyShare = share(picks, readmitted, Duration.ZERO, Duration.ofMillis(150));
+        double lateShare = share(picks, readmitted, Duration.ofMillis(650), Duration.ofMillis(900));
+        assertThat(lateShare).isGreaterThan(0.15);
+        assertThat(earlyShare).isLessThan(lateShare);
+    }
+
+    @Test
+    void removedInstanceStatsAreDropped() {
+        InstanceStatsRegistry registry = registry(new MockEnvironment());
+        PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(null, SERVICE_ID, registry);
+
+        Backend a = new Backend("a", Duration.ofMillis(5));
+        Backend b = new Backend("b", Duration.ofMillis(5));
+        Backend c = new Backend("c", Duration.ofMillis(5));
+        new Simulation(loadBalancer, registry, a, b, c).run(30, 2);
+        registry.onStart(c.instance);
+
+        // c가 서비스 목록에서 빠지면 상태를 제거하고, 진행 중이던 요청이 끝나도 다시 만들지 않는다.
+        new Simulation(loadBalancer, registry, a, b).run(10, 2);
+        registry.onComplete(c.instance, Duration.ofMillis(5).toNanos(), Outcome.SUCCESS);
+
+        InstanceStats removed = registry.stats(c.instance);
+        assertThat(removed.getOutstanding()).isZero();
+        assertThat(removed.latencyNanos(1)).isZero();
+    }
+
+    // 시뮬레이션은 1초 안팎의 가상 시간 동안 실행되므로 응답 시간 평균도 그에 맞게 빨리 갱신되도록 decay-time을 줄인다.
+    private InstanceStatsRegistry registry(MockEnvironment env) {
+        env.setConversionService((ConfigurableConversionService) ApplicationConversionService.getSharedInstance());
+        if (!env.containsProperty("gateway.loadbalancer.decay-time"))
+            env.setProperty("gateway.loadbalancer.decay-time", "200ms");
+        Random random = new Random(42);
+        return new InstanceStatsRegistry(env, new SimpleMeterRegistry(), () -> now, () -> random);
+    }
+
+    // readmitted 기준 [from, to) 구간의 요청 중 target이 선택된 비율
+    private static double share(List<Pick> picks, long readmitted, Duration from, Duration to) {
+        int total = 0;
+        int picked = 0;
+        for (Pick pick : picks) {
+            long elapsed = pick.sentAt - readmitted;
+            if (elapsed < from.toNanos() || elapsed >= to.toNanos())
+                continue;
+            total++;
+            if (pick.target)
+                picked++;
+        }
+        return total == 0 ? 0 : (double) picked / total;
+    }
+
+    // 응답 시간이 고정된 인스턴스
+    private static class Backend {
+        final ServiceInstance instance;
+        final long latencyNanos;
+        boolean failing;
+        int requests;
+
+        Backend(String instanceId, Duration latency) {
+            this.instance = new DefaultServiceInstance(instanceId, SERVICE_ID, "127.0.0.1", 8080, false);
+            this.latencyNanos = latency.toNanos();
+        }
+    }
+
+    // 응답 시각 순서로 요청을 끝내면서 가상 시각을 진행하는 시뮬레이션
+    private class Simulation {
+        final PeakEwmaLoadBalancer loadBalancer;
+        final InstanceStatsRegistry registry;
+        final List<ServiceInstance> instances = new ArrayList<>();
+        final Map<ServiceInstance, Backend> backends = new HashMap<>();
+
+        Simulation(PeakEwmaLoadBalancer loadBalancer, InstanceStatsRegistry registry, Backend... backends) {
+            this.loadBalancer = loadBalancer;
+            this.registry = registry;
+            Arrays.stream(backends).forEach(backend -> {
+                instances.add(backend.instance);
+                this.backends.put(backend.instance, backend);
+            });
+        }
+
+        // 동시에 concurrency개씩 요청을 유지하면서 모두 requests번 요청
+        void run(int requests, int concurrency) {
+            PriorityQueue<InFlight> inFlight = new PriorityQueue<>((x, y) -> Long.compare(x.completesAt, y.completesAt));
+            int sent = 0;
+            while (sent < Math.min(concurrency, requests)) {
+                inFlight.add(send());
+                sent++;
+            }
+            while (!inFlight.isEmpty()) {
+                InFlight completed = inFlight.poll();
+                now = completed.completesAt;
+                complete(completed);
+                if (sent < requests) {
+                    inFlight.add(send());
+                    sent++;
+                }
+            }
+        }
+
+        // duration 동안 한 번에 하나씩 요청하고, 요청마다 target이 선택되었는지 반환
+        List<Pick> runFor(Duration duration, Backend target) {
+            List<Pick> picks = new ArrayList<>();
+            long end = now + duration.toNanos();
+            while (now < end) {
+                InFlight request = send();
+                picks.add(new Pick(now, request.backend == target));
+                now = request.completesAt;
+                complete(request);
+            }
+            return picks;
+        }
+
+        private InFlight send() {
+            Backend backend = backends.get(loadBalancer.choose(instances).getServer());
+            backend.requests++;
+            registry.onStart(backend.instance);
+            return new InFlight(backend, now);
+        }
+
+        private void complete(InFlight request) {
+            registry.onComplete(request.backend.instance, request.backend.latencyNanos,
+                    request.backend.failing ? Outcome.FAILURE : Outcome.SUCCESS);
+        }
+    }
+
+    private static class InFlight {
+        final Backend backend;
+        final long completesAt;
+
+        InFlight(Backend backend, long sentAt) {
+            this.backend = backend;
+            this.completesAt = sentAt + backend.latencyNanos;
+        }
+    }
+
+    private static class Pick {
+        final long sentAt;
+        final boolean target;
+
+        Pick(long sentAt, boolean target) {
+            this.sentAt = sentAt;
+            this.target = target;
+        }
+    }
+}
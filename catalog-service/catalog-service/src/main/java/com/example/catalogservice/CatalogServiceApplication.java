@@ -1,7 +1,10 @@
 package com.example.catalogservice;
 
+import com.example.catalogservice.vo.FieldProjection;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class CatalogServiceApplication {
@@ -10,4 +13,9 @@ public class CatalogServiceApplication {
 		SpringApplication.run(CatalogServiceApplication.class, args);
 	}
 
+	// @JsonFilter가 붙은 응답 VO(ResponseCatalog)를 필터 지정 없이 직렬화해도 모든 속성을 쓰도록 기본 필터 등록
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer fieldProjectionCustomizer() {
+		return builder -> builder.filters(FieldProjection.defaultFilters());
+	}
 }
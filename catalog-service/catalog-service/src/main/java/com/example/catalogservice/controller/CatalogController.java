@@ -2,14 +2,17 @@ package com.example.catalogservice.controller;
 
 import com.example.catalogservice.jpa.CatalogEntity;
 import com.example.catalogservice.service.CatalogService;
+import com.example.catalogservice.vo.FieldProjection;
 import com.example.catalogservice.vo.ResponseCatalog;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.ArrayList;
@@ -32,8 +35,9 @@ public class CatalogController {
         return String.format("It's Working in Catalog Service on PORT %s", env.getProperty("local.server.port"));
     }
 
+    // fields: 응답에 포함할 속성 (ex. ?fields=productId,unitPrice)
     @GetMapping("/catalogs")
-    public ResponseEntity<List<ResponseCatalog>> getCatalogs() {
+    public ResponseEntity<MappingJacksonValue> getCatalogs(@RequestParam(value = "fields", required = false) String fields) {
         Iterable<CatalogEntity> catalogList = catalogService.getAllCatalogs();
 
         List<ResponseCatalog> result = new ArrayList<>();
@@ -41,6 +45,7 @@ public class CatalogController {
             result.add(new ModelMapper().map(v, ResponseCatalog.class));
         });
 
-        return ResponseEntity.status(HttpStatus.OK).body(result);
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(FieldProjection.project(result, FieldProjection.CATALOG_FILTER, FieldProjection.parse(fields)));
     }
 }
@@ -0,0 +1,179 @@
+package com.example.catalogservice.messagequeue;
+
+import com.example.catalogservice.jpa.CatalogEntity;
+import com.example.catalogservice.jpa.CatalogRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+상품 가격을 compacted topic(catalog-prices)으로 발행
+order-service는 이 topic으로 로컬 가격표를 만들어 주문 금액을 catalog-service 호출 없이 계산한다.
+ - 상품은 JPA를 거치지 않고(H2 console 등) 변경될 수 있으므로 publish-interval마다 catalog 테이블을 읽어
+   마지막으로 발행한 값과 달라진 상품만 발행하고, 삭제된 상품은 tombstone(value null)으로 발행한다.
+ - 시작할 때는 topic을 처음부터 읽어 이미 발행된 상품을 발행 기록으로 삼고 모든 상품을 발행한다. (같은 key의 이전 메시지는 compaction으로 정리됨)
+   catalog-service가 내려가 있는 동안 삭제된 상품도 topic에는 남아 있으므로 tombstone을 발행할 수 있다.
+ */
+@Component
+@Slf4j
+public class CatalogPriceProducer implements DisposableBean {
+    public static final String TOPIC = "catalog-prices";
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    // productId -> 마지막으로 발행한 메시지
+    private final Map<String, String> published = new ConcurrentHashMap<>();
+    // topic에서 발행 기록을 읽었는지 여부 (읽기 전에는 발행하지 않음)
+    private volatile boolean loaded;
+
+    CatalogRepository repository;
+    KafkaTemplate<String, String> kafkaTemplate;
+    ConsumerFactory<String, byte[]> consumerFactory;
+
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-price-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogPriceProducer(CatalogRepository repository, KafkaTemplate<String, String> kafkaTemplate,
+                                ConsumerFactory<String, byte[]> consumerFactory, Environment env) {
+        this.repository = repository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.consumerFactory = consumerFactory;
+        this.intervalMillis = env.getProperty("catalog.price.publish-interval", Duration.class, Duration.ofSeconds(10)).toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::publishChanges, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void publishChanges() {
+        try {
+            if (!loaded)
+                loadPublished();
+
+            Map<String, String> current = new LinkedHashMap<>();
+            for (CatalogEntity entity : repository.findAll())
+                current.put(entity.getProductId(), toMessage(entity));
+
+            int changed = 0;
+            for (Map.Entry<String, String> entry : current.entrySet()) {
+                if (!entry.getValue().equals(published.get(entry.getKey()))) {
+                    send(entry.getKey(), entry.getValue());
+                    changed++;
+                }
+            }
+            Set<String> removed = new HashSet<>(published.keySet());
+            removed.removeAll(current.keySet());
+            for (String productId : removed) {
+                send(productId, null);
+                changed++;
+            }
+
+            if (changed > 0) {
+                kafkaTemplate.flush();
+                log.info("Published {} catalog price changes", changed);
+            }
+        } catch (RuntimeException ex) {
+            // 발행하지 못한 상품은 다음 주기에 다시 발행
+            log.warn("Publishing catalog prices failed: {}", ex.toString());
+        }
+    }
+
+    // topic에 남아 있는 상품(마지막 메시지가 tombstone이 아닌 key)을 발행 기록에 추가
+    // 기록된 메시지는 빈 문자열이므로 테이블에 있는 상품은 다시 발행되고, 없는 상품은 tombstone이 발행된다.
+    private void loadPublished() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer("catalog-price-producer", null, null, overrides)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            List<PartitionInfo> infos = consumer.partitionsFor(TOPIC, LOAD_TIMEOUT);
+            if (infos != null)
+                infos.forEach(info -> partitions.add(new TopicPartition(TOPIC, info.partition())));
+
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, LOAD_TIMEOUT);
+
+            Set<String> products = new HashSet<>();
+            long deadline = System.currentTimeMillis() + LOAD_TIMEOUT.toMillis();
+            while (partitions.stream().anyMatch(partition -> consumer.position(partition, LOAD_TIMEOUT) < endOffsets.get(partition))) {
+                if (System.currentTimeMillis() > deadline)
+                    throw new IllegalStateException("Timed out reading " + TOPIC);
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(500))) {
+                    if (record.key() == null)
+                        continue;
+                    if (record.value() == null)
+                        products.remove(record.key());
+                    else
+                        products.add(record.key());
+                }
+            }
+
+            products.forEach(productId -> published.putIfAbsent(productId, ""));
+            loaded = true;
+            log.info("Loaded {} published catalog prices from {}", products.size(), TOPIC);
+        }
+    }
+
+    // 발행 기록은 먼저 바꾸고, 전송에 실패하면 되돌려서 다음 주기에 다시 발행
+    private void send(String productId, String message) {
+        if (message == null)
+            published.remove(productId);
+        else
+            published.put(productId, message);
+
+        kafkaTemplate.send(TOPIC, productId, message).addCallback(result -> { }, ex -> {
+            log.warn("Could not publish price of {}: {}", productId, ex.toString());
+            if (message == null)
+                published.putIfAbsent(productId, "");
+            else
+                published.remove(productId, message);
+        });
+    }
+
+    private String toMessage(CatalogEntity entity) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("productId", entity.getProductId());
+        message.put("productName", entity.getProductName());
+        message.put("unitPrice", entity.getUnitPrice());
+        try {
+            return mapper.writeValueAsString(message);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
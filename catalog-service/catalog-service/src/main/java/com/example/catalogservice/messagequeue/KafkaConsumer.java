@@ -2,14 +2,12 @@ package com.example.catalogservice.messagequeue;
 
 import com.example.catalogservice.jpa.CatalogEntity;
 import com.example.catalogservice.jpa.CatalogRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,34 +16,34 @@ import java.util.Map;
 @Slf4j
 public class KafkaConsumer {
     CatalogRepository repository;
+    OrderMessageDecoder decoder;
 
     @Autowired
-    public KafkaConsumer(CatalogRepository repository) {
+    public KafkaConsumer(CatalogRepository repository, OrderMessageDecoder decoder) {
         this.repository = repository;
+        this.decoder = decoder;
     }
 
     // 'example-catalog-topic' 토픽에서 메시지를 수신하는 메서드
     @KafkaListener(topics = "example-catalog-topic")
-    public void updateQty(String kafkaMessage) {
-        log.info("Kafka Message: ->" + kafkaMessage);
-
+    public void updateQty(byte[] kafkaMessage) {
         Map<Object, Object> map = new HashMap<>();
         /*
-            ObjectMapper를 사용하여 kafkaMessage에서 데이터를 추출
-            메시지 데이터는 JSON 형식으로 되어 있으며 이를 Map 객체로 변환한다.
+            OrderMessageDecoder를 사용하여 kafkaMessage에서 데이터를 추출
+            메시지 데이터는 JSON 또는 Avro 형식으로 되어 있으며 이를 Map 객체로 변환한다.
         */
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            map = mapper.readValue(kafkaMessage, new TypeReference<Map<Object, Object>>() {});
-        } catch (JsonProcessingException ex) {
+            map = decoder.decode(kafkaMessage);
+        } catch (IOException ex) {
             ex.printStackTrace();
         }
+        log.info("Kafka Message: ->" + map);
 
         /*
            변환된 Map 객체에서 productId값을 추출하여 CatalogEntity 객체를 조회한다.
            조회된 CatalogEntity 객체의 stock 값을 업데이트하여 repository.save를 호출하여 데이터를 저장한다.
         */
-        CatalogEntity entity = repository.fprivateindByProductId((String) map.get("productId"));
+        CatalogEntity entity = repository.findByProductId((String) map.get("productId"));
         if (entity != null) {
             entity.setStock(entity.getStock() - (Integer)map.get("qty"));
             repository.save(entity);
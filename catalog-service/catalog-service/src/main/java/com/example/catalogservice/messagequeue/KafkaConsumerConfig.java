@@ -1,16 +1,19 @@
 package com.example.catalogservice.messagequeue;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.hibernate.type.descriptor.java.StringTypeDescriptor;
 import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,7 +27,7 @@ Catalogs Service에서 Kafka Topic에 전송 된 메시지 취득 -> Consumer
 public class KafkaConsumerConfig {
     // Kafka Consumer를 생성하기 위한 팩토리 메서드
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, byte[]> consumerFactory() {
         Map<String, Object> properties = new HashMap<>();
         // 사용하고자 하는 Kafka 서버의 주소
         properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "127.0.0.1:9092");
@@ -40,7 +43,8 @@ public class KafkaConsumerConfig {
         properties.put(ConsumerConfig.GROUP_ID_CONFIG, "127.0.0.1:9092");
         // Consumer가 읽어들이는 데이터의 key와 value의 직렬화 방법을 지정
         properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // value는 JSON 또는 Avro이므로 byte 배열로 받아 OrderMessageDecoder로 해석
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
 
         return new DefaultKafkaConsumerFactory<>(properties);
     }
@@ -48,11 +52,18 @@ public class KafkaConsumerConfig {
     // Kafka Listener(Topic에 변경사항이 있는지 Listening)를 생성하기 위한 팩토리 메서드 정의
     // 만약 Topic에 변경사항이 생기면 해당하는 값을 바로 캐치
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory
                 = new ConcurrentKafkaListenerContainerFactory<>();
         kafkaListenerContainerFactory.setConsumerFactory(consumerFactory());
 
         return kafkaListenerContainerFactory;
     }
+
+    // Avro 메시지의 schema 저장소. order-service와 같은 directory를 사용해야 schema id를 조회할 수 있다.
+    @Bean
+    public SchemaRegistry schemaRegistry(Environment env) {
+        String directory = env.getProperty("kafka.schema-registry.dir");
+        return new LocalSchemaRegistry(directory == null || directory.isEmpty() ? null : Paths.get(directory));
+    }
 }
@@ -0,0 +1,92 @@
+package com.example.catalogservice.messagequeue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+로컬 실행용 SchemaRegistry
+ - schema id는 schema의 정규화된 형태(Parsing Canonical Form)의 fingerprint로 정하므로 서비스끼리 id를 맞출 필요가 없다.
+ - directory를 지정하면 <id>.avsc 파일로 저장하고, 같은 directory를 사용하는 다른 서비스가 저장한 schema도 id로 조회한다.
+   directory가 없으면 프로세스 내부에만 보관한다.
+subject별 버전 관리와 호환성 검사는 하지 않는다.
+같은 directory를 공유하는 서비스가 같은 id를 계산해야 하므로 order-service의 복사본과 package 선언 외에는 항상 같게 유지한다.
+ */
+@Slf4j
+public class LocalSchemaRegistry implements SchemaRegistry {
+    private final Path directory;
+    private final ConcurrentMap<Integer, Schema> schemas = new ConcurrentHashMap<>();
+
+    public LocalSchemaRegistry(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public int register(String subject, Schema schema) {
+        int id = idOf(schema);
+        Schema existing = schemas.putIfAbsent(id, schema);
+        if (existing == null && directory != null)
+            existing = store(id, schema);
+        // 32 bit로 줄인 id가 충돌한 경우
+        if (existing != null
+                && SchemaNormalization.parsingFingerprint64(existing) != SchemaNormalization.parsingFingerprint64(schema))
+            throw new IllegalStateException("Schema id " + id + " is already used by another schema");
+
+        log.info("Registered schema {} for subject {} (id {})", schema.getFullName(), subject, id);
+        return id;
+    }
+
+    @Override
+    public Schema getById(int id) {
+        Schema schema = schemas.computeIfAbsent(id, this::load);
+        if (schema == null)
+            throw new IllegalArgumentException("Unknown schema id " + id);
+        return schema;
+    }
+
+    private static int idOf(Schema schema) {
+        long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & Integer.MAX_VALUE;
+    }
+
+    // 이미 파일이 있으면 그 schema를 반환 (다른 프로세스가 먼저 등록)
+    private Schema store(int id, Schema schema) {
+        Path file = directory.resolve(id + ".avsc");
+        try {
+            if (Files.exists(file))
+                return new Schema.Parser().parse(file.toFile());
+
+            // 다른 프로세스가 쓰는 중인 파일을 읽지 않도록 임시 파일에 쓴 뒤 이동
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, id + "-", ".tmp");
+            Files.write(temp, schema.toString(true).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            return null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not store schema " + id, ex);
+        }
+    }
+
+    private Schema load(int id) {
+        if (directory == null)
+            return null;
+
+        Path file = directory.resolve(id + ".avsc");
+        if (!Files.exists(file))
+            return null;
+        try {
+            return new Schema.Parser().parse(file.toFile());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read schema " + id, ex);
+        }
+    }
+}
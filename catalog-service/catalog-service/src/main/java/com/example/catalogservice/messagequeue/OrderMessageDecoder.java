@@ -0,0 +1,72 @@
+package com.example.catalogservice.messagequeue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.util.Utf8;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+order-service가 보낸 example-catalog-topic 메시지 해석 (order-service의 OrderMessageCodec 참고)
+ - 첫 byte가 0이면 Avro (0 + schema id + Avro binary), 아니면 JSON
+order-service가 JSON에서 Avro로 형식을 바꾸는 동안 두 형식이 섞여 있어도 모두 읽는다.
+Avro 메시지는 Producer가 사용한 schema(schema id로 조회)에서 catalog-service의 schema(avro/catalog-order.avsc)로
+변환해서 읽으므로 catalog-service가 사용하지 않는 필드가 추가되어도 영향이 없다.
+ */
+@Component
+public class OrderMessageDecoder {
+    private static final byte MAGIC_BYTE = 0;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Schema readerSchema = loadSchema("avro/catalog-order.avsc");
+    private final ConcurrentMap<Integer, DatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+
+    SchemaRegistry schemaRegistry;
+
+    public OrderMessageDecoder(SchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    // 필드 이름 -> 값
+    public Map<Object, Object> decode(byte[] message) throws IOException {
+        if (message.length > 0 && message[0] == MAGIC_BYTE) {
+            int schemaId = ByteBuffer.wrap(message, 1, 4).getInt();
+            DatumReader<GenericRecord> reader = readers.computeIfAbsent(schemaId,
+                    id -> new GenericDatumReader<>(schemaRegistry.getById(id), readerSchema));
+            GenericRecord record = reader.read(null,
+                    DecoderFactory.get().binaryDecoder(message, 5, message.length - 5, null));
+
+            Map<Object, Object> result = new HashMap<>();
+            readerSchema.getFields().forEach(field -> {
+                Object value = record.get(field.pos());
+                result.put(field.name(), value instanceof Utf8 ? value.toString() : value);
+            });
+            return result;
+        }
+
+        return mapper.readValue(message, new TypeReference<Map<Object, Object>>() {});
+    }
+
+    private static Schema loadSchema(String resource) {
+        try (InputStream in = OrderMessageDecoder.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null)
+                throw new IllegalStateException("Schema resource not found: " + resource);
+            return new Schema.Parser().parse(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
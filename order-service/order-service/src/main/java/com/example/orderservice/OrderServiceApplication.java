@@ -1,7 +1,12 @@
 package com.example.orderservice;
 
+import com.example.orderservice.vo.FieldProjection;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class OrderServiceApplication {
@@ -10,4 +15,17 @@ public class OrderServiceApplication {
 		SpringApplication.run(OrderServiceApplication.class, args);
 	}
 
+	// @JsonFilter가 붙은 응답 VO(ResponseOrder)를 필터 지정 없이 직렬화해도 모든 속성을 쓰도록 기본 필터 등록
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer fieldProjectionCustomizer() {
+		return builder -> builder.filters(FieldProjection.defaultFilters());
+	}
+
+	// catalog-prices topic을 읽지 못했을 때 catalog-service에서 가격표를 받아오기 위해 사용 (CatalogPriceSnapshotLoader)
+	// -> http://catalog-service/catalog-service/catalogs 처럼 Microservice 이름으로 호출
+	@Bean
+	@LoadBalanced
+	public RestTemplate getRestTemplate() {
+		return new RestTemplate();
+	}
 }
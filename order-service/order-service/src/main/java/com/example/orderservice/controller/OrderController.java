@@ -4,36 +4,66 @@ import com.example.orderservice.dto.OrderDto;
 import com.example.orderservice.jpa.OrderEntity;
 import com.example.orderservice.messagequeue.KafkaProducer;
 import com.example.orderservice.messagequeue.OrderProducer;
+import com.example.orderservice.service.CatalogPriceTable;
+import com.example.orderservice.service.OrderEventBroadcaster;
+import com.example.orderservice.service.OrderExportService;
 import com.example.orderservice.service.OrderService;
+import com.example.orderservice.vo.FieldProjection;
 import com.example.orderservice.vo.RequestOrder;
+import com.example.orderservice.vo.RequestOrderLookup;
 import com.example.orderservice.vo.ResponseOrder;
+import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/order-service")
+@Slf4j
 public class OrderController {
     Environment env;
     OrderService orderService;
     KafkaProducer kafkaProducer;
 
     OrderProducer orderProducer;
+    OrderEventBroadcaster orderEventBroadcaster;
+    CatalogPriceTable catalogPriceTable;
+    OrderExportService orderExportService;
 
     @Autowired
-    public OrderController(Environment env, OrderService orderService, KafkaProducer kafkaProducer, OrderProducer orderProducer) {
+    public OrderController(Environment env, OrderService orderService, KafkaProducer kafkaProducer, OrderProducer orderProducer,
+                           OrderEventBroadcaster orderEventBroadcaster, CatalogPriceTable catalogPriceTable,
+                           OrderExportService orderExportService) {
         this.env = env;
         this.orderService = orderService;
         this.kafkaProducer = kafkaProducer;
         this.orderProducer = orderProducer;
+        this.orderEventBroadcaster = orderEventBroadcaster;
+        this.catalogPriceTable = catalogPriceTable;
+        this.orderExportService = orderExportService;
     }
 
     @GetMapping("/health_check")
@@ -55,8 +85,11 @@ public class OrderController {
 //        ResponseOrder responseOrder = mapper.map(createdOrder, ResponseOrder.class);
 
         /* kafka */
+        // 단가는 클라이언트가 보낸 값 대신 로컬 가격표(CatalogPriceTable)에서 조회
+        Integer unitPrice = resolveUnitPrice(orderDetails);
         orderDto.setOrderId(UUID.randomUUID().toString());
-        orderDto.setTotalPrice(orderDetails.getQty() * orderDetails.getUnitPrice());
+        orderDto.setUnitPrice(unitPrice);
+        orderDto.setTotalPrice(orderDetails.getQty() * unitPrice);
 
         /* send this order to the kafka */
         kafkaProducer.send("example-catalog-topic", orderDto);
@@ -68,8 +101,33 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseOrder);
     }
 
+    // 가격표를 아직 불러오지 못했으면 503, 없는 상품이거나 수량이 잘못되면 400
+    // 클라이언트가 보낸 단가가 현재 가격과 다르면 409 (생략 가능)
+    private Integer resolveUnitPrice(RequestOrder orderDetails) {
+        if (!catalogPriceTable.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Catalog prices are not loaded yet");
+        }
+        if (orderDetails.getQty() == null || orderDetails.getQty() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Qty must be positive");
+        }
+
+        Integer unitPrice = catalogPriceTable.unitPrice(orderDetails.getProductId());
+        if (unitPrice == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown product: " + orderDetails.getProductId());
+        }
+        if (orderDetails.getUnitPrice() != null && !orderDetails.getUnitPrice().equals(unitPrice)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Unit price of " + orderDetails.getProductId() + " is " + unitPrice);
+        }
+
+        return unitPrice;
+    }
+
+    // fields: 응답에 포함할 속성 (ex. ?fields=orderId,totalPrice)
     @GetMapping("/{userId}/orders")
-    public ResponseEntity<List<ResponseOrder>> getOrder(@PathVariable("userId") String userId) {
+    public ResponseEntity<MappingJacksonValue> getOrder(@PathVariable("userId") String userId,
+                                                        @RequestParam(value = "fields", required = false) String fields) {
         Iterable<OrderEntity> orderList = orderService.getAllOrdersByUserId(userId);
 
         List<ResponseOrder> result = new ArrayList<>();
@@ -77,6 +135,88 @@ public class OrderController {
             result.add(new ModelMapper().map(v, ResponseOrder.class));
         });
 
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(FieldProjection.project(result, FieldProjection.ORDER_FILTER, FieldProjection.parse(fields)));
+    }
+
+    // 사용자의 주문 상태 변경 이벤트를 SSE로 전송 (주문 목록 polling 대신 사용)
+    // event name: STOCK_REQUESTED, CREATED / id: orderId / data: OrderEvent
+    @GetMapping(value = "/{userId}/orders/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrders(@PathVariable("userId") String userId) {
+        return orderEventBroadcaster.subscribe(userId);
+    }
+
+    // 여러 사용자의 주문 내역을 한 번에 조회 (user-service의 POST /users/lookup에서 사용, Gateway에서는 차단)
+    // 반환값: userId -> 주문 목록 (주문이 없는 사용자는 빈 목록)
+    @PostMapping("/orders/lookup")
+    public ResponseEntity<Map<String, List<ResponseOrder>>> lookupOrders(@RequestBody RequestOrderLookup request) {
+        int maxIds = env.getProperty("order.lookup.max-ids", Integer.class, 100);
+        if (request.getUserIds() == null || request.getUserIds().isEmpty() || request.getUserIds().size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "User ids must be between 1 and " + maxIds);
+        }
+
+        Map<String, List<ResponseOrder>> result = new LinkedHashMap<>();
+        request.getUserIds().forEach(userId -> result.put(userId, new ArrayList<>()));
+
+        ModelMapper mapper = new ModelMapper();
+        orderService.getAllOrdersByUserIds(request.getUserIds()).forEach(v -> {
+            result.get(v.getUserId()).add(mapper.map(v, ResponseOrder.class));
+        });
+
         return ResponseEntity.status(HttpStatus.OK).body(result);
     }
+
+    // 기간 내 모든 주문을 CSV(format=csv) 또는 NDJSON(format=ndjson)으로 내보냄 (분석용, order.admin.user-ids에 있는 사용자만)
+    // from, to: 생성 날짜 (yyyy-MM-dd, 둘 다 포함). Accept-Encoding에 gzip이 있으면 gzip으로 압축
+    // 응답 크기를 미리 알 수 없으므로 chunked로 전송하고, 도중에 실패하면 연결을 끊어 잘린 응답임을 알 수 있게 한다.
+    @GetMapping("/admin/orders/export")
+    public void exportOrders(@RequestHeader(value = "X-User-Id", required = false) String adminId,
+                             @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                             @RequestParam(value = "format", defaultValue = "csv") String format,
+                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                             HttpServletResponse response) throws IOException {
+        List<String> admins = Arrays.asList(env.getProperty("order.admin.user-ids", String[].class, new String[0]));
+        if (adminId == null || !admins.contains(adminId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Order export is only allowed for admins");
+        }
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "From must not be after to");
+        }
+
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format must be csv or ndjson");
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String extension = exportFormat == OrderExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(exportFormat == OrderExportService.Format.CSV
+                ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"orders-" + from + "-" + to + "." + extension + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip)
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        long started = System.currentTimeMillis();
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192) : response.getOutputStream();
+        long count = orderExportService.export(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), exportFormat, out);
+        // 실패했을 때 닫으면 마지막 chunk(gzip trailer)까지 전송되어 정상 응답처럼 보이므로 성공했을 때만 닫는다.
+        out.close();
+        log.info("Exported {} orders ({} ~ {}, {}) in {}ms", count, from, to, extension, System.currentTimeMillis() - started);
+    }
+
+    // gzip;q=0 은 gzip을 받지 않겠다는 뜻
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        return Arrays.stream(acceptEncoding.split(","))
+                .map(coding -> coding.replace(" ", "").toLowerCase(Locale.ROOT))
+                .anyMatch(coding -> coding.equals("gzip")
+                        || coding.startsWith("gzip;") && !coding.matches("gzip;q=0(\\.0*)?"));
+    }
 }
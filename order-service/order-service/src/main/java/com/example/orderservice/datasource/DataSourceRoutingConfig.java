@@ -0,0 +1,80 @@
+package com.example.orderservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+order.datasource.replicas를 설정하면 spring.datasource(primary)와 replica를 ReplicaRoutingDataSource로 묶어서 사용
+ - target마다 커넥션 풀(HikariCP)을 따로 만들고 hikaricp.connections.* 지표(tag: pool)를 노출한다.
+ - replica에 연결할 수 없어도 애플리케이션은 시작하고(initializationFailTimeout -1),
+   replica-connection-timeout 안에 연결하지 못하면 primary에서 읽는다.
+ */
+@Configuration
+@ConditionalOnProperty("order.datasource.replicas[0].url")
+public class DataSourceRoutingConfig {
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment env,
+                                                             MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("order-" + ReplicaRoutingDataSource.PRIMARY);
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        Duration connectionTimeout = env.getProperty("order.datasource.replica-connection-timeout", Duration.class, Duration.ofSeconds(1));
+        List<DataSourceProperties> replicaProperties = Binder.get(env)
+                .bind("order.datasource.replicas", Bindable.listOf(DataSourceProperties.class))
+                .orElse(List.of());
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            DataSourceProperties replicaProperty = replicaProperties.get(i);
+            // 계정을 생략하면 primary와 같은 계정 사용
+            if (replicaProperty.getUsername() == null) {
+                replicaProperty.setUsername(properties.getUsername());
+                replicaProperty.setPassword(properties.getPassword());
+            }
+
+            String name = "replica-" + i;
+            HikariDataSource replica = replicaProperty.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            replica.setPoolName("order-" + name);
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, new QueryTimingDataSource(replica, name, meterRegistry));
+        }
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                new QueryTimingDataSource(primary, ReplicaRoutingDataSource.PRIMARY, meterRegistry),
+                replicas,
+                env.getProperty("order.datasource.lag-query", "SHOW SLAVE STATUS"),
+                env.getProperty("order.datasource.max-lag", Duration.class, Duration.ofSeconds(5)),
+                meterRegistry);
+        routingDataSource.startLagChecks(env.getProperty("order.datasource.lag-check-interval", Duration.class, Duration.ofSeconds(2)));
+
+        return routingDataSource;
+    }
+
+    // JPA(EntityManagerFactory)가 사용하는 DataSource
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.orderservice.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/*
+target(primary, replica-0, ...)별 SQL 실행 시간을 order.datasource.query 지표로 기록하는 DataSource
+Statement의 execute* 호출 시간만 측정한다. (ResultSet을 읽는 시간은 포함하지 않음)
+ */
+public class QueryTimingDataSource extends DelegatingDataSource implements Closeable {
+    private final Timer timer;
+
+    public QueryTimingDataSource(DataSource targetDataSource, String target, MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        this.timer = Timer.builder("order.datasource.query")
+                .description("SQL statement execution time per database target")
+                .tag("target", target)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    // Connection이 만든 Statement(PreparedStatement, CallableStatement)를 감싼다.
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = delegate(proxy, connection, method, args);
+                    if (result instanceof Statement && method.getReturnType().isInterface())
+                        return wrap((Statement) result, method.getReturnType());
+                    return result;
+                });
+    }
+
+    private Object wrap(Statement statement, Class<?> type) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute"))
+                        return delegate(proxy, statement, method, args);
+
+                    long start = System.nanoTime();
+                    try {
+                        return delegate(proxy, statement, method, args);
+                    } finally {
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                });
+    }
+
+    // equals, hashCode는 proxy 기준으로 비교 (Spring이 ConnectionHolder의 Connection을 비교할 때 사용)
+    private static Object delegate(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1)
+            return proxy == args[0];
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0)
+            return System.identityHashCode(proxy);
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    // 커넥션 풀(HikariDataSource)을 닫는다.
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof Closeable)
+            ((Closeable) target).close();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.orderservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica로, 나머지는 primary로 보내는 DataSource
+ - lag-check-interval마다 replica의 복제 지연(lag-query)을 조회해 max-lag 이내인 replica만 사용하고
+   사용할 수 있는 replica가 여러 개면 round-robin으로 선택한다. 사용할 replica가 없으면 primary에서 읽는다.
+ - replica에 연결하지 못하면 다음 확인 때까지 제외하고 primary에 연결한다.
+ - 트랜잭션을 시작할 때는 아직 readOnly 여부가 설정되지 않으므로 LazyConnectionDataSourceProxy로 감싸서
+   첫 SQL을 실행할 때 연결할 DataSource를 결정한다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    public static final String PRIMARY = "primary";
+    // SHOW SLAVE STATUS 결과에서 복제 지연(초)을 읽을 컬럼. 없으면 첫 번째 컬럼을 사용
+    private static final String LAG_COLUMN = "Seconds_Behind_Master";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    // 지금 읽기에 사용할 수 있는 replica
+    private volatile List<String> available = List.of();
+    private final AtomicInteger next = new AtomicInteger();
+    // replica -> 마지막으로 확인한 복제 지연(초), 확인하지 못했으면 NaN
+    private final Map<String, Double> lags = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> routed = new HashMap<>();
+    private final Counter fallback;
+    private ScheduledExecutorService executor;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, String lagQuery,
+                                    Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.putAll(this.replicas);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        targets.keySet().forEach(target -> routed.put((String) target, Counter.builder("order.datasource.connections")
+                .description("Connections handed out per database target")
+                .tag("target", (String) target)
+                .register(meterRegistry)));
+        this.fallback = Counter.builder("order.datasource.replica.fallback")
+                .description("Read-only transactions sent to the primary because no replica was usable")
+                .register(meterRegistry);
+        this.replicas.keySet().forEach(replica -> {
+            lags.put(replica, Double.NaN);
+            Gauge.builder("order.datasource.replica.lag", lags, m -> m.getOrDefault(replica, Double.NaN))
+                    .description("Replication lag of the replica at the last check")
+                    .baseUnit("seconds")
+                    .tag("target", replica)
+                    .register(meterRegistry);
+        });
+    }
+
+    public void startLagChecks(Duration interval) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return PRIMARY;
+
+        List<String> candidates = available;
+        if (candidates.isEmpty())
+            return PRIMARY;
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String target = route();
+        if (!PRIMARY.equals(target)) {
+            try {
+                return connect(target, replicas.get(target).getConnection());
+            } catch (SQLException ex) {
+                log.warn("Replica {} is unavailable, reading from the primary: {}", target, ex.toString());
+                markUnavailable(target);
+                fallback.increment();
+            }
+        }
+        return connect(PRIMARY, primary.getConnection());
+    }
+
+    // replica마다 계정을 따로 지정하지 않으므로 primary와 같은 방식으로 연결
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private String route() {
+        String target = (String) determineCurrentLookupKey();
+        if (PRIMARY.equals(target) && TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !replicas.isEmpty())
+            fallback.increment();
+        return target;
+    }
+
+    private Connection connect(String target, Connection connection) {
+        routed.get(target).increment();
+        return connection;
+    }
+
+    // 복제 지연을 확인하지 못했거나 max-lag을 넘은 replica는 제외
+    public void checkReplicas() {
+        List<String> usable = new ArrayList<>();
+        replicas.forEach((replica, dataSource) -> {
+            double lag = lagSeconds(replica, dataSource);
+            lags.put(replica, lag);
+            if (lag <= maxLagSeconds)
+                usable.add(replica);
+        });
+
+        synchronized (this) {
+            if (!usable.equals(available))
+                log.info("Replicas used for reads: {} (lag: {})", usable, lags);
+            available = List.copyOf(usable);
+        }
+    }
+
+    private double lagSeconds(String replica, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(5);
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                // 결과가 없으면 복제가 설정되지 않은 DB
+                if (!resultSet.next())
+                    return Double.NaN;
+                double lag = resultSet.getDouble(lagColumn(resultSet.getMetaData()));
+                // 복제가 멈췄으면 NULL
+                return resultSet.wasNull() ? Double.NaN : lag;
+            }
+        } catch (SQLException ex) {
+            log.debug("Could not check the lag of replica {}: {}", replica, ex.toString());
+            return Double.NaN;
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            if (LAG_COLUMN.equalsIgnoreCase(metaData.getColumnLabel(column)))
+                return column;
+        }
+        return 1;
+    }
+
+    private synchronized void markUnavailable(String replica) {
+        List<String> usable = new ArrayList<>(available);
+        if (usable.remove(replica))
+            available = List.copyOf(usable);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (executor != null)
+            executor.shutdownNow();
+        for (Object target : getResolvedDataSources().values()) {
+            if (target instanceof Closeable)
+                ((Closeable) target).close();
+        }
+    }
+}
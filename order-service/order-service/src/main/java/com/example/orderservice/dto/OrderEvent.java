@@ -0,0 +1,26 @@
+package com.example.orderservice.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/*
+주문 상태 변경 이벤트 (GET /order-service/{userId}/orders/stream 으로 전송)
+ - STOCK_REQUESTED: catalog-service에 재고 차감을 요청 (example-catalog-topic)
+ - CREATED: 주문이 저장 요청됨 (orders topic -> JDBC Sink Connector)
+ */
+@Data
+public class OrderEvent implements Serializable {
+    public static final String STOCK_REQUESTED = "STOCK_REQUESTED";
+    public static final String CREATED = "CREATED";
+
+    private String type;
+    private String orderId;
+    private String userId;
+    private String productId;
+    private Integer qty;
+    private Integer unitPrice;
+    private Integer totalPrice;
+    // Kafka record의 timestamp (epoch millis)
+    private long occurredAt;
+}
@@ -9,7 +9,7 @@ import java.util.Date;
 
 @Data
 @Entity
-@Table(name="orders")
+@Table(name="orders", indexes = @Index(name = "idx_orders_created_at", columnList = "createdAt"))
 public class OrderEntity implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +29,7 @@ public class OrderEntity implements Serializable {
     @Column(nullable = false, unique = false)
     private String orderId;
 
+    // 기간별 주문 export(OrderExportService)에서 created_at 범위로 조회
     @Column(nullable = false, updatable = false, insertable = false)
     @ColumnDefault(value = "CURRENT_TIMESTAMP")
     private Date createdAt;
@@ -2,7 +2,11 @@ package com.example.orderservice.jpa;
 
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+
 public interface OrderRepository extends CrudRepository<OrderEntity, Long> {
     OrderEntity findByOrderId(String productId);
     Iterable<OrderEntity> findByUserId(String userId);
+    // 여러 사용자의 주문을 IN 쿼리 한 번으로 조회
+    Iterable<OrderEntity> findByUserIdIn(Collection<String> userIds);
 }
@@ -0,0 +1,91 @@
+package com.example.orderservice.messagequeue;
+
+import com.example.orderservice.service.CatalogPriceTable;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+catalog-prices topic(compacted, key: productId)을 처음부터 읽어 CatalogPriceTable을 만든다.
+ - 파티션을 할당받으면 처음 offset으로 이동하고, 그 시점의 마지막 offset까지 읽으면 가격표를 사용할 수 있는 상태로 표시
+ - 이후에는 가격 변경을 계속 반영한다. value가 null(tombstone)이면 삭제된 상품
+ */
+@Service
+@Slf4j
+public class CatalogPriceConsumer implements ConsumerAwareRebalanceListener {
+    public static final String LISTENER_ID = "catalog-prices";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    // 아직 끝까지 읽지 못한 파티션 -> 할당 시점의 마지막 offset
+    private final Map<TopicPartition, Long> catchingUp = new ConcurrentHashMap<>();
+    // Broker에 연결되어 파티션을 할당받았는지 여부
+    private volatile boolean assigned;
+
+    CatalogPriceTable priceTable;
+
+    public CatalogPriceConsumer(CatalogPriceTable priceTable) {
+        this.priceTable = priceTable;
+    }
+
+    @KafkaListener(id = LISTENER_ID, topics = "catalog-prices", containerFactory = "catalogPriceListenerContainerFactory")
+    public void consume(ConsumerRecord<String, byte[]> record) {
+        if (record.key() != null) {
+            try {
+                priceTable.update(record.key(), record.value() == null ? null : unitPrice(record.value()));
+            } catch (IOException ex) {
+                log.warn("Skipping malformed catalog price of {}: {}", record.key(), ex.toString());
+            }
+        }
+
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        Long endOffset = catchingUp.get(partition);
+        if (endOffset != null && record.offset() + 1 >= endOffset && catchingUp.remove(partition) != null)
+            markReadyIfCaughtUp();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        consumer.seekToBeginning(partitions);
+        Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+        consumer.endOffsets(partitions).forEach((partition, end) -> {
+            if (end > beginning.getOrDefault(partition, 0L))
+                catchingUp.put(partition, end);
+        });
+        assigned = true;
+        markReadyIfCaughtUp();
+    }
+
+    // 마지막 offset이 transaction marker 등이라 받지 못해도, 파티션을 할당받은 뒤 더 읽을 메시지가 없으면 사용할 수 있는 상태로 표시
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (event.getListenerId().startsWith(LISTENER_ID) && assigned && !priceTable.isReady()) {
+            catchingUp.clear();
+            markReadyIfCaughtUp();
+        }
+    }
+
+    private void markReadyIfCaughtUp() {
+        if (catchingUp.isEmpty() && !priceTable.isReady()) {
+            priceTable.markReady();
+            log.info("Catalog price table loaded ({} products)", priceTable.size());
+        }
+    }
+
+    private Integer unitPrice(byte[] value) throws IOException {
+        JsonNode unitPrice = mapper.readTree(value).get("unitPrice");
+        return unitPrice == null || unitPrice.isNull() ? null : unitPrice.asInt();
+    }
+}
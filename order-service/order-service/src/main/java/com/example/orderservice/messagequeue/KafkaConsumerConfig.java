@@ -0,0 +1,69 @@
+package com.example.orderservice.messagequeue;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+Order Service가 보낸 주문 메시지를 다시 읽어 SSE 구독자에게 전달 -> Consumer (OrderEventConsumer)
+catalog-service가 발행한 상품 가격으로 로컬 가격표를 만듦 -> Consumer (CatalogPriceConsumer)
+구독자는 어느 인스턴스에 연결되어 있을지 모르므로 인스턴스마다 별도의 Consumer Group을 사용해 모든 메시지를 받는다.
+ - 연결된 구독자에게 새 이벤트만 보내면 되므로 항상 최신 offset부터 읽고 offset은 commit하지 않는다.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+    @Bean
+    public ConsumerFactory<String, byte[]> consumerFactory() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "127.0.0.1:9092");
+        // 인스턴스별 Consumer Group
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, "order-service-stream-" + UUID.randomUUID());
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // JSON, Avro 메시지 모두 OrderMessageCodec으로 해석
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+
+        return new DefaultKafkaConsumerFactory<>(properties);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory
+                = new ConcurrentKafkaListenerContainerFactory<>();
+        kafkaListenerContainerFactory.setConsumerFactory(consumerFactory());
+
+        return kafkaListenerContainerFactory;
+    }
+
+    // catalog-prices topic(CatalogPriceConsumer)은 인스턴스마다 처음부터 모두 읽어 가격표를 만든다.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> catalogPriceListenerContainerFactory(
+            CatalogPriceConsumer catalogPriceConsumer) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "127.0.0.1:9092");
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, "order-service-prices-" + UUID.randomUUID());
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory
+                = new ConcurrentKafkaListenerContainerFactory<>();
+        kafkaListenerContainerFactory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(properties));
+        // 파티션을 할당받으면 처음 offset으로 이동
+        kafkaListenerContainerFactory.getContainerProperties().setConsumerRebalanceListener(catalogPriceConsumer);
+        kafkaListenerContainerFactory.getContainerProperties().setIdleEventInterval(5000L);
+
+        return kafkaListenerContainerFactory;
+    }
+}
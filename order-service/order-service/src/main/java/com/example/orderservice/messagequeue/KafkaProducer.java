@@ -1,37 +1,30 @@
 package com.example.orderservice.messagequeue;
 
 import com.example.orderservice.dto.OrderDto;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 // Kafka Template을 사용하여 메시지를 Kafka에 보내는 역할
 @Service
 @Slf4j
 public class KafkaProducer {
-    private KafkaTemplate<String, String> kafkaTemplate;
+    OrderMessageSender sender;
+    OrderMessageCodec codec;
 
     @Autowired
 
-    public KafkaProducer(KafkaTemplate<String, String> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public KafkaProducer(OrderMessageSender sender, OrderMessageCodec codec) {
+        this.sender = sender;
+        this.codec = codec;
     }
 
-    // OrderDto객체를 JSON 문자열로 변환하고 KafkaTemplate의 send를 호출하여
+    // OrderDto객체를 topic의 형식(JSON 또는 Avro)으로 직렬화하고 KafkaTemplate의 send를 호출하여
     // Kafka에 메시지를 보냄
     public OrderDto send(String topic, OrderDto orderDto) {
-        ObjectMapper mapper = new ObjectMapper();
-        String jsonInString = "";
-        try {
-            jsonInString = mapper.writeValueAsString(orderDto);
-        } catch (JsonProcessingException ex) {
-            ex.printStackTrace();
-        }
+        byte[] message = codec.isAvro(topic) ? codec.toAvro(topic, orderDto) : codec.toJson(orderDto);
 
-        kafkaTemplate.send(topic, jsonInString);
+        sender.send(topic, message);
         log.info("Kafka Producer sent data from the Order microservice: " + orderDto);
 
         return orderDto;
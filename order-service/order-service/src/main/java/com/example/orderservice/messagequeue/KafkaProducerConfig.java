@@ -2,14 +2,18 @@ package com.example.orderservice.messagequeue;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.hibernate.type.descriptor.java.StringTypeDescriptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,21 +24,48 @@ Order Service에서 Kafka Topic으로 메시지 전송 -> Producer
 @EnableKafka
 @Configuration
 public class KafkaProducerConfig {
+    Environment env;
+
+    public KafkaProducerConfig(Environment env) {
+        this.env = env;
+    }
+
     // Kafka Producer를 생성하기 위한 설정 정보를 포함하는 팩토리 클래스
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> properties = new HashMap<>();
         // 사용하고자하는 Kafka서버의 주소
         properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "127.0.0.1:9092");
         properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // 메시지는 OrderMessageCodec이 JSON 또는 Avro로 직렬화한 byte 배열
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // batch 단위 압축. linger 동안 모인 메시지를 batch-size까지 한 번에 압축해서 전송
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, env.getProperty("order.kafka.compression-type", "none"));
+        properties.put(ProducerConfig.LINGER_MS_CONFIG,
+                (int) env.getProperty("order.kafka.linger", Duration.class, Duration.ZERO).toMillis());
+        properties.put(ProducerConfig.BATCH_SIZE_CONFIG, env.getProperty("order.kafka.batch-size", Integer.class, 16384));
+        // Broker에 연결할 수 없을 때 요청 스레드가 기다리는 시간(max-block)과 전송 실패로 판단하는 시간(delivery-timeout)
+        // 실패한 메시지는 OrderMessageSender가 로컬 spool에 보관한다.
+        properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG,
+                env.getProperty("order.kafka.max-block", Duration.class, Duration.ofSeconds(1)).toMillis());
+        properties.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG,
+                (int) env.getProperty("order.kafka.request-timeout", Duration.class, Duration.ofSeconds(5)).toMillis());
+        properties.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG,
+                (int) env.getProperty("order.kafka.delivery-timeout", Duration.class, Duration.ofSeconds(10)).toMillis());
 
         return new DefaultKafkaProducerFactory<>(properties);
     }
 
     // Kafka Producer를 템플릿으로 사용하여 Kafka 메시지를 보내는 데 사용
     @Bean
-    public KafkaTemplate<String, String> keyTemplate() {
+    public KafkaTemplate<String, byte[]> keyTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    // Avro 메시지의 schema 저장소. catalog-service와 같은 directory를 사용해야 schema id를 조회할 수 있다.
+    @Bean
+    public SchemaRegistry schemaRegistry() {
+        String directory = env.getProperty("kafka.schema-registry.dir");
+        return new LocalSchemaRegistry(directory == null || directory.isEmpty() ? null : Paths.get(directory));
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.orderservice.messagequeue;
+
+import com.example.orderservice.dto.OrderEvent;
+import com.example.orderservice.service.OrderEventBroadcaster;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/*
+주문 생성 시 보낸 메시지(example-catalog-topic, orders)를 주문 상태 변경 이벤트로 변환해 구독자에게 전달
+인스턴스마다 하나의 Consumer가 모든 구독자의 이벤트를 받아 OrderEventBroadcaster로 나눠준다.
+ */
+@Service
+@Slf4j
+public class OrderEventConsumer {
+    OrderMessageCodec codec;
+    OrderEventBroadcaster broadcaster;
+
+    public OrderEventConsumer(OrderMessageCodec codec, OrderEventBroadcaster broadcaster) {
+        this.codec = codec;
+        this.broadcaster = broadcaster;
+    }
+
+    @KafkaListener(topics = {OrderMessageCodec.CATALOG_TOPIC, OrderMessageCodec.ORDERS_TOPIC})
+    public void consume(ConsumerRecord<String, byte[]> record) {
+        OrderEvent event;
+        try {
+            event = toEvent(record.topic(), codec.decode(record.value()));
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Skipping malformed order message on {}: {}", record.topic(), ex.toString());
+            return;
+        }
+        if (event.getUserId() == null)
+            return;
+
+        event.setOccurredAt(record.timestamp());
+        broadcaster.publish(event);
+    }
+
+    private static OrderEvent toEvent(String topic, Map<String, Object> message) {
+        OrderEvent event = new OrderEvent();
+        if (OrderMessageCodec.ORDERS_TOPIC.equals(topic)) {
+            // orders 테이블의 컬럼 이름 (JDBC Sink Connector 형식)
+            event.setType(OrderEvent.CREATED);
+            event.setOrderId(text(message, "order_id"));
+            event.setUserId(text(message, "user_id"));
+            event.setProductId(text(message, "product_id"));
+            event.setQty(number(message, "qty"));
+            event.setUnitPrice(number(message, "unit_price"));
+            event.setTotalPrice(number(message, "total_price"));
+        } else {
+            // OrderDto
+            event.setType(OrderEvent.STOCK_REQUESTED);
+            event.setOrderId(text(message, "orderId"));
+            event.setUserId(text(message, "userId"));
+            event.setProductId(text(message, "productId"));
+            event.setQty(number(message, "qty"));
+            event.setUnitPrice(number(message, "unitPrice"));
+            event.setTotalPrice(number(message, "totalPrice"));
+        }
+        return event;
+    }
+
+    private static String text(Map<String, Object> message, String field) {
+        Object value = message.get(field);
+        return value == null ? null : value.toString();
+    }
+
+    private static Integer number(Map<String, Object> message, String field) {
+        Object value = message.get(field);
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+}
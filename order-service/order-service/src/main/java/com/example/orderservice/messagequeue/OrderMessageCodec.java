@@ -0,0 +1,141 @@
+package com.example.orderservice.messagequeue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+주문 메시지(example-catalog-topic, orders)의 직렬화 형식
+ - json: 기존 JSON 형식 (orders는 JDBC Sink Connector가 읽는 schema + payload 형식)
+ - avro: 0(magic byte) + schema id(4 byte) + Avro binary. Confluent Schema Registry의 메시지 형식과 같다.
+topic별 형식은 order.kafka.encoding.<topic>으로 지정하고(기본값 json), 읽을 때는 첫 byte로 형식을 구분하므로
+형식을 바꾸는 동안 두 형식이 섞여 있어도 읽을 수 있다.
+ */
+@Component
+public class OrderMessageCodec {
+    public static final String CATALOG_TOPIC = "example-catalog-topic";
+    public static final String ORDERS_TOPIC = "orders";
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final Map<String, String> SCHEMAS = Map.of(
+            CATALOG_TOPIC, "avro/catalog-order.avsc",
+            ORDERS_TOPIC, "avro/orders.avsc");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, AvroWriter> writers = new HashMap<>();
+    private final ConcurrentMap<Integer, DatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+
+    SchemaRegistry schemaRegistry;
+
+    public OrderMessageCodec(SchemaRegistry schemaRegistry, Environment env) {
+        this.schemaRegistry = schemaRegistry;
+
+        SCHEMAS.forEach((topic, resource) -> {
+            if ("avro".equalsIgnoreCase(env.getProperty("order.kafka.encoding." + topic, "json"))) {
+                Schema schema = loadSchema(resource);
+                writers.put(topic, new AvroWriter(schemaRegistry.register(topic + "-value", schema), schema));
+            }
+        });
+    }
+
+    public boolean isAvro(String topic) {
+        return writers.containsKey(topic);
+    }
+
+    public byte[] toJson(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // value의 속성 중 topic schema에 있는 필드만 Avro로 직렬화
+    public byte[] toAvro(String topic, Object value) {
+        AvroWriter writer = writers.get(topic);
+        Map<String, Object> properties = mapper.convertValue(value, new TypeReference<Map<String, Object>>() {});
+
+        GenericRecord record = new GenericData.Record(writer.schema);
+        writer.schema.getFields().forEach(field -> record.put(field.name(), properties.get(field.name())));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC_BYTE);
+        out.writeBytes(ByteBuffer.allocate(4).putInt(writer.schemaId).array());
+        try {
+            BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+            writer.datumWriter.write(record, encoder);
+            encoder.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    // 두 형식 모두 필드 이름 -> 값으로 변환. orders의 JSON 메시지는 payload만 반환
+    public Map<String, Object> decode(byte[] message) throws IOException {
+        if (message.length > 0 && message[0] == MAGIC_BYTE) {
+            int schemaId = ByteBuffer.wrap(message, 1, 4).getInt();
+            DatumReader<GenericRecord> reader = readers.computeIfAbsent(schemaId,
+                    id -> new GenericDatumReader<>(schemaRegistry.getById(id)));
+            GenericRecord record = reader.read(null,
+                    DecoderFactory.get().binaryDecoder(message, 5, message.length - 5, null));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            record.getSchema().getFields().forEach(field -> {
+                Object value = record.get(field.pos());
+                result.put(field.name(), value instanceof Utf8 ? value.toString() : value);
+            });
+            return result;
+        }
+
+        Map<String, Object> result = mapper.readValue(message, new TypeReference<Map<String, Object>>() {});
+        Object payload = result.get("payload");
+        if (payload instanceof Map && result.containsKey("schema"))
+            return mapper.convertValue(payload, new TypeReference<Map<String, Object>>() {});
+        return result;
+    }
+
+    private static Schema loadSchema(String resource) {
+        try (InputStream in = OrderMessageCodec.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null)
+                throw new IllegalStateException("Schema resource not found: " + resource);
+            return new Schema.Parser().parse(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static class AvroWriter {
+        final int schemaId;
+        final Schema schema;
+        final GenericDatumWriter<GenericRecord> datumWriter;
+
+        AvroWriter(int schemaId, Schema schema) {
+            this.schemaId = schemaId;
+            this.schema = schema;
+            this.datumWriter = new GenericDatumWriter<>(schema);
+        }
+    }
+}
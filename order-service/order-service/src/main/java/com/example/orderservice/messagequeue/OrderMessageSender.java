@@ -0,0 +1,67 @@
+package com.example.orderservice.messagequeue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+주문 메시지를 Kafka로 보내고, 보내지 못하면 로컬 spool(OrderSpool)에 보관
+ - Broker의 응답을 send-timeout까지 기다린 뒤 응답하므로, 주문 생성이 성공(201)하면 메시지는 Kafka나 spool 중 한 곳에 보관되어 있다.
+ - Broker에 연결할 수 없어 전송이 실패하거나(max-block, delivery-timeout) send-timeout 안에 응답이 없으면 메시지를 spool에 추가하고
+   OrderSpoolReplayer가 Broker가 복구된 뒤 순서대로 보낸다. (응답이 늦었을 뿐 전송된 메시지는 중복될 수 있음 - at least once)
+ - spool에 보내지 못한 메시지가 남아 있는 동안에는 순서를 지키기 위해 새 메시지도 Kafka 대신 spool에 추가한다.
+ */
+@Component
+@Slf4j
+public class OrderMessageSender {
+    KafkaTemplate<String, byte[]> kafkaTemplate;
+    OrderSpool spool;
+
+    private final long sendTimeoutMillis;
+
+    public OrderMessageSender(KafkaTemplate<String, byte[]> kafkaTemplate, OrderSpool spool, Environment env) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.spool = spool;
+        this.sendTimeoutMillis = env.getProperty("order.kafka.send-timeout", Duration.class, Duration.ofSeconds(2)).toMillis();
+    }
+
+    // spool도 가득 차서 보관할 수 없으면 503, spool segment보다 큰 메시지는 보관할 수 없으므로 413
+    public void send(String topic, byte[] message) {
+        if (!spool.isEmpty()) {
+            append(topic, message);
+            return;
+        }
+
+        try {
+            kafkaTemplate.send(topic, message).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (KafkaException | TimeoutException ex) {
+            log.warn("Kafka send to {} failed, spooling message: {}", topic, ex.toString());
+            append(topic, message);
+        } catch (ExecutionException ex) {
+            log.warn("Kafka send to {} failed, spooling message: {}", topic, ex.getCause().toString());
+            append(topic, message);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            append(topic, message);
+        }
+    }
+
+    private void append(String topic, byte[] message) {
+        try {
+            spool.append(topic, message);
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Order spool is full");
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage());
+        }
+    }
+}
@@ -1,11 +1,8 @@
 package com.example.orderservice.messagequeue;
 
 import com.example.orderservice.dto.*;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
@@ -42,10 +39,9 @@ import java.util.List;
 @Service
 @Slf4j
 public class OrderProducer {
-    // Kafka에서 제공하는 메시지 전송을 쉽게 해주는 템플릿
-    // 첫 번째 제네릭 타입: Key의 타입
-    // 두 번째 제네릭 타입: Value의 타입
-    private KafkaTemplate<String, String> kafkaTemplate;
+    // KafkaTemplate으로 메시지를 전송하고, 실패하면 로컬 spool에 보관
+    OrderMessageSender sender;
+    OrderMessageCodec codec;
 
     // Kafka의 Schema에 들어갈 필드를 정의
     List<Field> fields = Arrays.asList(new Field("stirng", true, "order_id"),
@@ -65,8 +61,9 @@ public class OrderProducer {
 
     @Autowired
 
-    public OrderProducer(KafkaTemplate<String, String> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public OrderProducer(OrderMessageSender sender, OrderMessageCodec codec) {
+        this.sender = sender;
+        this.codec = codec;
     }
 
     // Kafka에 메세지를 전송하는 메소드
@@ -84,16 +81,11 @@ public class OrderProducer {
 
         KafkaOrderDto kafkaOrderDto = new KafkaOrderDto(schema, payload);
 
-        // ObjectMapper 객체를 사용하여 KafkaOrderDto 객체를 JSON 문자열로 변환
-        ObjectMapper mapper = new ObjectMapper();
-        String jsonInString = "";
-        try {
-            jsonInString = mapper.writeValueAsString(kafkaOrderDto);
-        } catch (JsonProcessingException ex) {
-            ex.printStackTrace();
-        }
+        // JSON은 JDBC Sink Connector가 읽을 수 있도록 schema를 메시지마다 포함하고,
+        // Avro는 schema id만 포함하므로 payload만 직렬화
+        byte[] message = codec.isAvro(topic) ? codec.toAvro(topic, payload) : codec.toJson(kafkaOrderDto);
 
-        kafkaTemplate.send(topic, jsonInString);
+        sender.send(topic, message);
         log.info("Order Producer sent data from the Order microservice: " + kafkaOrderDto);
 
         return kafkaOrderDto;
@@ -0,0 +1,241 @@
+package com.example.orderservice.messagequeue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+Kafka에 보내지 못한 주문 메시지를 보관하는 로컬 디스크의 append-only log
+ - 고정 크기 segment 파일(SpoolSegment)을 memory-map해서 순서대로 추가하고, 가득 차면 다음 segment를 만든다.
+ - OrderSpoolReplayer가 앞에서부터 읽어 Kafka로 보낸 뒤 commit()하면 읽은 위치를 checkpoint 파일에 저장하고,
+   모두 보낸 segment는 삭제한다.
+ - 재시작하면 segment와 checkpoint를 다시 읽어 보내지 못한 메시지부터 이어서 보낸다.
+Kafka로 보낸 뒤 checkpoint를 저장하기 전에 종료되면 같은 메시지를 다시 보낼 수 있다. (at-least-once)
+ */
+@Component
+@Slf4j
+public class OrderSpool implements DisposableBean {
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    // append할 때마다 디스크에 기록 (false이면 OS가 기록하는 시점까지 장애 시 유실 가능)
+    private final boolean forceOnAppend;
+
+    private final ConcurrentSkipListMap<Long, SpoolSegment> segments = new ConcurrentSkipListMap<>();
+    private volatile SpoolSegment head;
+    // 다음에 읽을 위치 (OrderSpoolReplayer만 변경)
+    private volatile long readSegment;
+    private volatile int readPosition;
+    // 아직 Kafka로 보내지 않은 메시지 수
+    private final AtomicLong depth = new AtomicLong();
+
+    private final Counter appended;
+
+    public OrderSpool(Environment env, MeterRegistry meterRegistry) throws IOException {
+        this.directory = Paths.get(env.getProperty("order.spool.dir", "spool"));
+        this.segmentBytes = (int) env.getProperty("order.spool.segment-size", DataSize.class, DataSize.ofMegabytes(16)).toBytes();
+        long maxBytes = env.getProperty("order.spool.max-size", DataSize.class, DataSize.ofGigabytes(1)).toBytes();
+        this.maxSegments = (int) Math.max(1, maxBytes / segmentBytes);
+        this.forceOnAppend = env.getProperty("order.spool.force-on-append", Boolean.class, true);
+
+        load();
+
+        this.appended = Counter.builder("order.spool.appended")
+                .description("Order messages written to the local spool instead of Kafka")
+                .register(meterRegistry);
+        Gauge.builder("order.spool.depth", depth, AtomicLong::get)
+                .description("Order messages in the local spool waiting to be sent to Kafka")
+                .register(meterRegistry);
+        Gauge.builder("order.spool.segments", segments, Map::size)
+                .description("Segment files of the local order spool")
+                .register(meterRegistry);
+    }
+
+    public boolean isEmpty() {
+        return depth.get() == 0;
+    }
+
+    public long depth() {
+        return depth.get();
+    }
+
+    // spool이 가득 차면 IllegalStateException
+    public synchronized void append(String topic, byte[] value) {
+        int frameSize = SpoolSegment.frameSize(topic, value);
+        if (frameSize > segmentBytes)
+            throw new IllegalArgumentException("Message is larger than a spool segment: " + frameSize);
+
+        if (!head.hasRoom(frameSize)) {
+            if (segments.size() >= maxSegments)
+                throw new IllegalStateException("Order spool is full");
+            head.force();
+            try {
+                head = SpoolSegment.open(directory, head.number + 1, segmentBytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not create spool segment", ex);
+            }
+            segments.put(head.number, head);
+        }
+
+        head.append(topic, value, forceOnAppend);
+        depth.incrementAndGet();
+        appended.increment();
+    }
+
+    // 읽은 위치부터 최대 max개의 메시지 (읽은 위치는 commit() 전까지 바뀌지 않음)
+    List<SpoolRecord> peek(int max) {
+        return peek(readSegment, readPosition, max);
+    }
+
+    private List<SpoolRecord> peek(long segmentNumber, int position, int max) {
+        List<SpoolRecord> records = new ArrayList<>();
+        while (records.size() < max) {
+            SpoolSegment segment = segments.get(segmentNumber);
+            if (segment == null)
+                break;
+
+            SpoolRecord record = segment.read(position);
+            if (record == null) {
+                // segment를 끝까지 읽었고 다음 segment가 있으면 이어서 읽음
+                Long next = segments.higherKey(segmentNumber);
+                if (next == null || position < segment.writePosition())
+                    break;
+                segmentNumber = next;
+                position = 0;
+                continue;
+            }
+
+            records.add(record);
+            segmentNumber = record.segment;
+            position = record.nextPosition;
+        }
+        return records;
+    }
+
+    // last까지 count개의 메시지를 Kafka로 보냄
+    void commit(SpoolRecord last, int count) {
+        readSegment = last.segment;
+        readPosition = last.nextPosition;
+        depth.addAndGet(-count);
+        writeCheckpoint(readSegment, readPosition);
+
+        ConcurrentNavigableMap<Long, SpoolSegment> replayed = segments.headMap(readSegment);
+        for (SpoolSegment segment : replayed.values()) {
+            try {
+                segment.delete();
+            } catch (IOException ex) {
+                log.warn("Could not delete spool segment {}: {}", segment.file, ex.toString());
+            }
+        }
+        replayed.clear();
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.getFileName().toString().endsWith(".log"))::iterator) {
+                String name = file.getFileName().toString();
+                long number = Long.parseLong(name.substring(0, name.length() - ".log".length()));
+                segments.put(number, SpoolSegment.open(directory, number, segmentBytes));
+            }
+        }
+        if (segments.isEmpty())
+            segments.put(0L, SpoolSegment.open(directory, 0, segmentBytes));
+        head = segments.lastEntry().getValue();
+
+        readSegment = segments.firstKey();
+        readPosition = 0;
+        long[] checkpoint = readCheckpoint();
+        if (checkpoint != null && segments.containsKey(checkpoint[0])) {
+            readSegment = checkpoint[0];
+            readPosition = (int) checkpoint[1];
+        }
+
+        // 보내지 못한 메시지 수
+        long pending = 0;
+        List<SpoolRecord> records;
+        long segmentNumber = readSegment;
+        int position = readPosition;
+        while (!(records = peek(segmentNumber, position, 1024)).isEmpty()) {
+            pending += records.size();
+            SpoolRecord last = records.get(records.size() - 1);
+            segmentNumber = last.segment;
+            position = last.nextPosition;
+        }
+        depth.set(pending);
+        if (pending > 0)
+            log.info("Order spool has {} messages waiting to be sent to Kafka", pending);
+    }
+
+    // segment 번호(8) | 위치(4) | crc32(4)
+    private long[] readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file))
+            return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() != 16)
+            return null;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, 12);
+        if ((int) crc.getValue() != buffer.getInt(12)) {
+            log.warn("Ignoring corrupted spool checkpoint");
+            return null;
+        }
+        return new long[]{buffer.getLong(0), buffer.getInt(8)};
+    }
+
+    private void writeCheckpoint(long segment, int position) {
+        ByteBuffer buffer = ByteBuffer.allocate(16).putLong(segment).putInt(position);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, 12);
+        buffer.putInt((int) crc.getValue()).flip();
+
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(buffer);
+            channel.force(true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write spool checkpoint", ex);
+        }
+        try {
+            Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write spool checkpoint", ex);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        for (SpoolSegment segment : segments.values()) {
+            segment.force();
+            segment.close();
+        }
+    }
+}
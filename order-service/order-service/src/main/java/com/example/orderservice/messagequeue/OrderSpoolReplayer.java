@@ -0,0 +1,115 @@
+package com.example.orderservice.messagequeue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+OrderSpool에 보관된 메시지를 저장된 순서대로 Kafka로 보내는 백그라운드 작업
+ - replay-batch개씩 보내고, 앞에서부터 연속으로 성공한 메시지까지 commit
+ - Kafka가 아직 응답하지 않으면 retry-backoff부터 두 배씩 늘려 최대 max-retry-backoff 간격으로 다시 시도
+ - Broker가 복구된 직후 밀린 메시지가 한꺼번에 몰리지 않도록 초당 replay-rate개까지만 보냄
+ */
+@Component
+@Slf4j
+public class OrderSpoolReplayer implements DisposableBean {
+    private static final long TICK_MILLIS = 100;
+
+    OrderSpool spool;
+    KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    private final int batchSize;
+    private final double ratePerSecond;
+    private final long sendTimeoutMillis;
+    private final long minBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final ScheduledExecutorService executor;
+    private final Counter replayed;
+
+    // replay 스레드에서만 사용
+    private double permits;
+    private long lastRefill = System.nanoTime();
+    private long backoffMillis;
+    private long retryAt;
+
+    public OrderSpoolReplayer(OrderSpool spool, KafkaTemplate<String, byte[]> kafkaTemplate,
+                              Environment env, MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.kafkaTemplate = kafkaTemplate;
+        this.batchSize = env.getProperty("order.spool.replay-batch", Integer.class, 100);
+        this.ratePerSecond = env.getProperty("order.spool.replay-rate", Double.class, 500.0);
+        this.sendTimeoutMillis = env.getProperty("order.spool.replay-timeout", Duration.class, Duration.ofSeconds(10)).toMillis();
+        this.minBackoffMillis = env.getProperty("order.spool.retry-backoff", Duration.class, Duration.ofSeconds(1)).toMillis();
+        this.maxBackoffMillis = env.getProperty("order.spool.max-retry-backoff", Duration.class, Duration.ofSeconds(30)).toMillis();
+
+        this.replayed = Counter.builder("order.spool.replayed")
+                .description("Order messages sent from the local spool to Kafka")
+                .register(meterRegistry);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-spool-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::replay, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void replay() {
+        long now = System.nanoTime();
+        permits = Math.min(ratePerSecond, permits + ratePerSecond * (now - lastRefill) / 1e9);
+        lastRefill = now;
+
+        if (spool.isEmpty() || System.currentTimeMillis() < retryAt || permits < 1)
+            return;
+
+        try {
+            List<SpoolRecord> records = spool.peek((int) Math.min(batchSize, permits));
+            List<ListenableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(records.size());
+            for (SpoolRecord record : records)
+                futures.add(kafkaTemplate.send(record.topic, record.value));
+
+            int sent = 0;
+            long deadline = System.currentTimeMillis() + sendTimeoutMillis;
+            try {
+                for (ListenableFuture<SendResult<String, byte[]>> future : futures) {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    sent++;
+                }
+            } finally {
+                if (sent > 0) {
+                    spool.commit(records.get(sent - 1), sent);
+                    permits -= sent;
+                    replayed.increment(sent);
+                }
+            }
+            backoffMillis = 0;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            // 실패한 메시지부터 다시 보냄 (뒤의 메시지 중 이미 전송된 것은 중복 전송될 수 있음)
+            backoffMillis = backoffMillis == 0 ? minBackoffMillis : Math.min(backoffMillis * 2, maxBackoffMillis);
+            retryAt = System.currentTimeMillis() + backoffMillis;
+            log.warn("Replaying spooled order messages failed, retrying in {} ms ({} waiting): {}",
+                    backoffMillis, spool.depth(), ex.toString());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.orderservice.messagequeue;
+
+import org.apache.avro.Schema;
+
+/*
+Avro 메시지의 schema id 저장소
+메시지에는 schema 전체 대신 schema id(4 byte)만 넣고, Consumer는 id로 Producer가 사용한 schema를 조회해 메시지를 해석한다.
+로컬 실행은 LocalSchemaRegistry를 사용하고, 다른 저장소(Confluent Schema Registry 등)는 이 interface를 구현한 Bean으로 교체한다.
+catalog-service와 order-service에 같은 내용으로 복사되어 있으므로(공유 모듈 없음) 수정할 때는 catalog-service의 복사본도 함께 수정한다.
+ */
+public interface SchemaRegistry {
+    // subject(<topic>-value)에 schema를 등록하고 id 반환. 같은 schema는 항상 같은 id
+    int register(String subject, Schema schema);
+
+    // 등록되지 않은 id이면 IllegalArgumentException
+    Schema getById(int id);
+}
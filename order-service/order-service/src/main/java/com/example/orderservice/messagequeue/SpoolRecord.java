@@ -0,0 +1,18 @@
+package com.example.orderservice.messagequeue;
+
+/*
+OrderSpool에 저장된 메시지 하나와 그 다음 record의 위치
+ */
+class SpoolRecord {
+    final String topic;
+    final byte[] value;
+    final long segment;
+    final int nextPosition;
+
+    SpoolRecord(String topic, byte[] value, long segment, int nextPosition) {
+        this.topic = topic;
+        this.value = value;
+        this.segment = segment;
+        this.nextPosition = nextPosition;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.orderservice.messagequeue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/*
+OrderSpool의 segment 파일 하나 (고정 크기, memory-mapped)
+record 형식: length(4) | crc32(4) | topic 길이(2) | topic | value
+ - length, crc32는 topic 길이부터 value 끝까지의 크기와 CRC
+ - length가 0이면 segment의 끝 (새 파일은 0으로 채워져 있음)
+쓰기는 OrderSpool이 한 스레드씩 하고, 읽기는 writePosition까지만 한다.
+ */
+class SpoolSegment {
+    static final int HEADER_BYTES = 8;
+
+    final long number;
+    final Path file;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // 마지막 record의 끝. 이 위치까지 쓴 뒤에 값을 바꾸므로 읽는 스레드는 여기까지만 읽는다.
+    private volatile int writePosition;
+
+    private SpoolSegment(long number, Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static SpoolSegment open(Path directory, long number, int size) throws IOException {
+        Path file = directory.resolve(String.format("%020d.log", number));
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SpoolSegment segment = new SpoolSegment(number, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        segment.recover();
+        return segment;
+    }
+
+    static int frameSize(String topic, byte[] value) {
+        return HEADER_BYTES + 2 + topic.getBytes(StandardCharsets.UTF_8).length + value.length;
+    }
+
+    boolean hasRoom(int frameSize) {
+        return writePosition + frameSize <= buffer.capacity();
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    // hasRoom()을 확인한 뒤 호출
+    void append(String topic, byte[] value, boolean force) {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        int length = 2 + topicBytes.length + value.length;
+
+        ByteBuffer body = ByteBuffer.allocate(length);
+        body.putShort((short) topicBytes.length).put(topicBytes).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+
+        ByteBuffer target = buffer.duplicate();
+        target.position(writePosition);
+        target.putInt(length).putInt((int) crc.getValue()).put(body.array());
+        if (force)
+            buffer.force();
+        writePosition += HEADER_BYTES + length;
+    }
+
+    // position의 record. writePosition 이후이거나 CRC가 맞지 않으면 null
+    SpoolRecord read(int position) {
+        if (position + HEADER_BYTES > writePosition)
+            return null;
+        return decode(buffer.duplicate(), position, writePosition);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    // 재시작 시 마지막으로 온전히 쓰인 record의 끝을 찾는다.
+    // 쓰는 중에 종료되어 CRC가 맞지 않는 record부터는 버리고 그 자리부터 다시 쓴다.
+    private void recover() {
+        ByteBuffer view = buffer.duplicate();
+        int position = 0;
+        SpoolRecord record;
+        while ((record = decode(view, position, view.capacity())) != null)
+            position = record.nextPosition;
+        writePosition = position;
+
+        // 남아 있는 불완전한 record가 다시 읽히지 않도록 0으로 채움
+        if (position + HEADER_BYTES <= view.capacity() && view.getInt(position) != 0) {
+            for (int i = position; i < view.capacity(); i++)
+                view.put(i, (byte) 0);
+            buffer.force();
+        }
+    }
+
+    private SpoolRecord decode(ByteBuffer view, int position, int limit) {
+        if (position + HEADER_BYTES > limit)
+            return null;
+        int length = view.getInt(position);
+        if (length < 2 || position + HEADER_BYTES + length > limit)
+            return null;
+
+        byte[] body = new byte[length];
+        view.position(position + HEADER_BYTES);
+        view.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != view.getInt(position + 4))
+            return null;
+
+        ByteBuffer bodyBuffer = ByteBuffer.wrap(body);
+        int topicLength = bodyBuffer.getShort() & 0xffff;
+        if (topicLength > length - 2)
+            return null;
+        String topic = new String(body, 2, topicLength, StandardCharsets.UTF_8);
+        byte[] value = new byte[length - 2 - topicLength];
+        System.arraycopy(body, 2 + topicLength, value, 0, value.length);
+        return new SpoolRecord(topic, value, number, position + HEADER_BYTES + length);
+    }
+}
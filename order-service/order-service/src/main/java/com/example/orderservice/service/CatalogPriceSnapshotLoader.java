@@ -0,0 +1,79 @@
+package com.example.orderservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Kafka에 연결할 수 없어 catalog-prices topic을 읽지 못하면 CatalogPriceTable이 준비되지 않아 주문을 받을 수 없으므로,
+시작 후 fallback-delay가 지나도 준비되지 않았으면 catalog-service의 상품 목록(GET /catalogs)을 한 번 받아 가격표를 채운다.
+ - 받아오지 못하면 fallback-delay마다 다시 시도하고, 가격표가 준비되면(topic을 읽었거나 목록을 받았으면) 중단
+ - 이후의 가격 변경은 Kafka가 복구되어 CatalogPriceConsumer가 topic을 읽을 때 반영된다. (그 전까지는 받아온 시점의 가격 사용)
+ */
+@Component
+@Slf4j
+public class CatalogPriceSnapshotLoader implements DisposableBean {
+    private static final String CATALOGS_URL = "http://catalog-service/catalog-service/catalogs?fields=productId,unitPrice";
+
+    CatalogPriceTable priceTable;
+    RestTemplate restTemplate;
+
+    private final long delayMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-price-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogPriceSnapshotLoader(CatalogPriceTable priceTable, RestTemplate restTemplate, Environment env) {
+        this.priceTable = priceTable;
+        this.restTemplate = restTemplate;
+        this.delayMillis = env.getProperty("order.catalog-price.fallback-delay", Duration.class, Duration.ofSeconds(15)).toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.schedule(this::loadIfNotReady, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void loadIfNotReady() {
+        if (priceTable.isReady())
+            return;
+
+        try {
+            JsonNode catalogs = restTemplate.getForObject(CATALOGS_URL, JsonNode.class);
+            if (catalogs == null || !catalogs.isArray())
+                throw new IllegalStateException("Unexpected catalog list: " + catalogs);
+
+            // 그 사이에 topic을 끝까지 읽었으면 topic의 가격을 그대로 사용
+            if (priceTable.isReady())
+                return;
+            for (JsonNode catalog : catalogs) {
+                JsonNode unitPrice = catalog.get("unitPrice");
+                if (catalog.hasNonNull("productId") && unitPrice != null && !unitPrice.isNull())
+                    priceTable.update(catalog.get("productId").asText(), unitPrice.asInt());
+            }
+            priceTable.markReady();
+            log.warn("Catalog prices are not replicated yet, loaded {} products from catalog-service instead", priceTable.size());
+        } catch (RestClientException | IllegalStateException ex) {
+            log.warn("Loading catalog prices from catalog-service failed, retrying in {} ms: {}", delayMillis, ex.toString());
+            executor.schedule(this::loadIfNotReady, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.orderservice.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+catalog-service가 catalog-prices topic으로 발행한 상품 가격의 로컬 복제본 (CatalogPriceConsumer가 갱신)
+주문 생성 시 단가를 클라이언트가 보낸 값 대신 이 가격표에서 조회하므로 catalog-service를 호출하지 않는다.
+topic을 처음부터 끝까지 한 번 읽기 전에는(isReady() == false) 가격표가 불완전하므로 사용하지 않는다.
+ */
+@Component
+public class CatalogPriceTable {
+    private final ConcurrentMap<String, Integer> unitPrices = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public void update(String productId, Integer unitPrice) {
+        if (unitPrice == null)
+            unitPrices.remove(productId);
+        else
+            unitPrices.put(productId, unitPrice);
+    }
+
+    // 가격표에 없는 상품이면 null
+    public Integer unitPrice(String productId) {
+        return productId == null ? null : unitPrices.get(productId);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public int size() {
+        return unitPrices.size();
+    }
+}
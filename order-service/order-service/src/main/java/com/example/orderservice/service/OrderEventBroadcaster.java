@@ -0,0 +1,146 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+사용자별 주문 상태 변경 이벤트를 SSE로 연결된 구독자들에게 나눠주는 클래스
+클라이언트가 GET /{userId}/orders 를 반복 호출(polling)하는 대신 연결을 유지하고 이벤트를 받는다.
+ - 하나의 Kafka Consumer(OrderEventConsumer)가 publish()를 호출하면 해당 사용자의 구독자 buffer에 이벤트를 넣는다.
+ - 구독자마다 buffer 크기가 제한되어 있고, buffer가 가득 찬 구독자는 연결을 끊는다. (느린 구독자 때문에 Consumer가 멈추지 않음)
+   이벤트를 일부만 버리면 클라이언트가 누락을 알 수 없으므로 연결을 끊고, 클라이언트는 다시 연결한 뒤 주문 목록을 한 번 조회한다.
+ - 연결 유지 확인을 위해 heartbeat-interval마다 comment 이벤트를 보낸다.
+ */
+@Component
+@Slf4j
+public class OrderEventBroadcaster implements DisposableBean {
+    private final ConcurrentMap<String, Set<OrderEventSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final int maxSubscribersPerUser;
+    private final long timeoutMillis;
+
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+
+    public OrderEventBroadcaster(Environment env) {
+        this.bufferSize = env.getProperty("order.stream.buffer-size", Integer.class, 32);
+        this.maxSubscribers = env.getProperty("order.stream.max-subscribers", Integer.class, 10000);
+        this.maxSubscribersPerUser = env.getProperty("order.stream.max-subscribers-per-user", Integer.class, 5);
+        this.timeoutMillis = env.getProperty("order.stream.timeout", Duration.class, Duration.ofMinutes(30)).toMillis();
+
+        this.dispatcher = Executors.newFixedThreadPool(
+                env.getProperty("order.stream.dispatch-threads", Integer.class, 4), daemon("order-stream-dispatch"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("order-stream-heartbeat"));
+
+        long interval = env.getProperty("order.stream.heartbeat-interval", Duration.class, Duration.ofSeconds(15)).toMillis();
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // 전체 구독자 수나 사용자별 구독자 수가 제한을 넘으면 503
+    public SseEmitter subscribe(String userId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many order stream subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        OrderEventSubscriber subscriber = new OrderEventSubscriber(userId, emitter, bufferSize, dispatcher, this::remove);
+        try {
+            subscribers.compute(userId, (key, set) -> {
+                if (set == null)
+                    set = ConcurrentHashMap.newKeySet();
+                if (set.size() >= maxSubscribersPerUser)
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many order streams for user");
+                set.add(subscriber);
+                return set;
+            });
+        } catch (ResponseStatusException ex) {
+            subscriberCount.decrementAndGet();
+            throw ex;
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+
+        // 응답 헤더를 바로 보내도록 첫 comment 전송
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    public void publish(OrderEvent event) {
+        Set<OrderEventSubscriber> set = subscribers.get(event.getUserId());
+        if (set == null)
+            return;
+
+        for (OrderEventSubscriber subscriber : set) {
+            SseEmitter.SseEventBuilder sse = SseEmitter.event()
+                    .id(event.getOrderId())
+                    .name(event.getType())
+                    .data(event, MediaType.APPLICATION_JSON);
+            if (!subscriber.offer(sse))
+                drop(subscriber);
+        }
+    }
+
+    private void sendHeartbeat() {
+        List<OrderEventSubscriber> slow = new ArrayList<>();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (!subscriber.offer(SseEmitter.event().comment("heartbeat")))
+                slow.add(subscriber);
+        }));
+        slow.forEach(this::drop);
+    }
+
+    private void drop(OrderEventSubscriber subscriber) {
+        log.info("Dropping slow order stream subscriber of user {}", subscriber.userId);
+        subscriber.close();
+    }
+
+    private void remove(OrderEventSubscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (key, set) -> {
+            if (set.remove(subscriber))
+                subscriberCount.decrementAndGet();
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(OrderEventSubscriber::close));
+        dispatcher.shutdown();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
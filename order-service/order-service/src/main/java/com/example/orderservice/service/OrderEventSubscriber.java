@@ -0,0 +1,81 @@
+package com.example.orderservice.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/*
+SSE 연결 하나 (OrderEventBroadcaster의 구독자)
+Kafka Consumer 스레드는 크기가 제한된 buffer에 이벤트를 넣기만 하고, 실제 전송은 dispatcher 스레드가 한다.
+한 구독자의 전송은 항상 하나의 dispatcher 스레드에서만 실행되므로 SseEmitter에 동시에 쓰지 않는다.
+ */
+class OrderEventSubscriber implements Runnable {
+    final String userId;
+    final SseEmitter emitter;
+
+    private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+    private final Executor dispatcher;
+    // 연결이 끊겼을 때 구독 목록에서 제거
+    private final Consumer<OrderEventSubscriber> onClosed;
+    // dispatcher에 전송 작업이 등록되어 있는지 여부
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    OrderEventSubscriber(String userId, SseEmitter emitter, int bufferSize, Executor dispatcher,
+                         Consumer<OrderEventSubscriber> onClosed) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.dispatcher = dispatcher;
+        this.onClosed = onClosed;
+    }
+
+    // buffer가 가득 차서 이벤트를 넣지 못하면 false (전송이 이벤트 발생 속도를 따라가지 못하는 구독자)
+    boolean offer(SseEmitter.SseEventBuilder event) {
+        if (closed)
+            return true;
+        if (!buffer.offer(event))
+            return false;
+        schedule();
+        return true;
+    }
+
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        buffer.clear();
+        emitter.complete();
+        onClosed.accept(this);
+    }
+
+    @Override
+    public void run() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!closed && (event = buffer.poll()) != null)
+                emitter.send(event);
+        } catch (IOException | IllegalStateException ex) {
+            // 클라이언트 연결이 끊김 (응답은 Servlet 컨테이너가 정리하므로 complete()를 호출하지 않는다)
+            closed = true;
+            buffer.clear();
+            onClosed.accept(this);
+        } finally {
+            scheduled.set(false);
+        }
+
+        // 전송을 마친 직후 들어온 이벤트
+        if (!closed && !buffer.isEmpty())
+            schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true))
+            dispatcher.execute(this);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/*
+기간 내 주문을 CSV 또는 NDJSON으로 내보내는 분석용 export
+ - 결과 전체를 메모리에 올리지 않도록 forward-only ResultSet을 fetch-size 행씩 읽으면서 바로 OutputStream에 쓴다.
+ - 영속성 컨텍스트에 엔티티가 쌓이지 않도록 JPA 대신 JdbcTemplate으로 읽는다.
+ - 읽기 전용 트랜잭션이므로 replica가 설정되어 있으면 replica에서 읽는다. (ReplicaRoutingDataSource)
+ */
+@Service
+public class OrderExportService {
+    public enum Format { CSV, NDJSON }
+
+    private static final String QUERY = "SELECT order_id, user_id, product_id, qty, unit_price, total_price, created_at " +
+            "FROM orders WHERE created_at >= ? AND created_at < ? ORDER BY created_at, id";
+    private static final String[] COLUMNS = {"orderId", "userId", "productId", "qty", "unitPrice", "totalPrice", "createdAt"};
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public OrderExportService(JdbcTemplate jdbcTemplate, Environment env) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = env.getProperty("order.export.fetch-size", Integer.class, 500);
+    }
+
+    // from 이상 to 미만에 생성된 주문을 out에 쓰고 내보낸 주문 수를 반환 (out은 닫지 않음)
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime from, LocalDateTime to, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = format == Format.NDJSON ? ndjsonGenerator(writer) : null;
+        if (format == Format.CSV)
+            writer.write(String.join(",", COLUMNS) + "\n");
+
+        long[] count = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(QUERY,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setTimestamp(1, Timestamp.valueOf(from));
+                statement.setTimestamp(2, Timestamp.valueOf(to));
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                try {
+                    if (json != null)
+                        writeJson(json, resultSet);
+                    else
+                        writeCsv(writer, resultSet);
+                    count[0]++;
+                } catch (IOException ex) {
+                    // 클라이언트 연결이 끊긴 경우 등
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        if (json != null)
+            json.flush();
+        writer.flush();
+        return count[0];
+    }
+
+    // 객체 사이에 기본 구분자(공백) 대신 writeJson에서 줄바꿈만 쓴다.
+    private JsonGenerator ndjsonGenerator(Writer writer) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(writer);
+        json.setRootValueSeparator(null);
+        return json;
+    }
+
+    private static void writeCsv(Writer writer, ResultSet resultSet) throws SQLException, IOException {
+        writer.write(csv(resultSet.getString("order_id")));
+        writer.write(',');
+        writer.write(csv(resultSet.getString("user_id")));
+        writer.write(',');
+        writer.write(csv(resultSet.getString("product_id")));
+        writer.write(',');
+        writer.write(String.valueOf(resultSet.getInt("qty")));
+        writer.write(',');
+        writer.write(String.valueOf(resultSet.getInt("unit_price")));
+        writer.write(',');
+        writer.write(String.valueOf(resultSet.getInt("total_price")));
+        writer.write(',');
+        writer.write(createdAt(resultSet));
+        writer.write('\n');
+    }
+
+    private static void writeJson(JsonGenerator json, ResultSet resultSet) throws SQLException, IOException {
+        json.writeStartObject();
+        json.writeStringField("orderId", resultSet.getString("order_id"));
+        json.writeStringField("userId", resultSet.getString("user_id"));
+        json.writeStringField("productId", resultSet.getString("product_id"));
+        json.writeNumberField("qty", resultSet.getInt("qty"));
+        json.writeNumberField("unitPrice", resultSet.getInt("unit_price"));
+        json.writeNumberField("totalPrice", resultSet.getInt("total_price"));
+        json.writeStringField("createdAt", createdAt(resultSet));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    // ISO-8601 (ex. 2023-04-01T12:30:00)
+    private static String createdAt(ResultSet resultSet) throws SQLException {
+        Timestamp createdAt = resultSet.getTimestamp("created_at");
+        return createdAt == null ? "" : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(createdAt.toLocalDateTime());
+    }
+
+    // 쉼표, 큰따옴표, 줄바꿈이 있는 값은 큰따옴표로 감싼다. (RFC 4180)
+    private static String csv(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
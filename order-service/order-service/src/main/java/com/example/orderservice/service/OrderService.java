@@ -3,8 +3,11 @@ package com.example.orderservice.service;
 import com.example.orderservice.dto.OrderDto;
 import com.example.orderservice.jpa.OrderEntity;
 
+import java.util.Collection;
+
 public interface OrderService {
     OrderDto createOrder(OrderDto orderDetails);
     OrderDto getOrderByOrderId(String orderId);
     Iterable<OrderEntity> getAllOrdersByUserId(String userId);
+    Iterable<OrderEntity> getAllOrdersByUserIds(Collection<String> userIds);
 }
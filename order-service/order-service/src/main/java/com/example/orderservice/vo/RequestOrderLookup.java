@@ -0,0 +1,11 @@
+package com.example.orderservice.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+// 여러 사용자의 주문 내역을 한 번에 조회하기 위한 요청 (POST /order-service/orders/lookup)
+@Data
+public class RequestOrderLookup {
+    private List<String> userIds;
+}
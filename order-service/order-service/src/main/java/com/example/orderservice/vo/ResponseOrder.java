@@ -1,5 +1,6 @@
 package com.example.orderservice.vo;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
@@ -7,6 +8,8 @@ import java.util.Date;
 
 @Data
 @JsonInclude(JsonInclude.Include.NON_NULL)
+// ?fields= 에서 요청한 속성만 직렬화 (FieldProjection)
+@JsonFilter(FieldProjection.ORDER_FILTER)
 public class ResponseOrder {
     private String productId;
     private Integer qty;
@@ -0,0 +1,158 @@
+package com.example.orderservice.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+primary, replica 역할의 H2 in-memory DB 두 개로 ReplicaRoutingDataSource의 라우팅을 확인
+각 DB의 target 테이블에는 자기 이름이, replica_status 테이블에는 복제 지연(초)이 들어 있다.
+ */
+class ReplicaRoutingDataSourceTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ToggleDataSource replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        replica = new ToggleDataSource(database("replica"));
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+
+        routingDataSource = new ReplicaRoutingDataSource(
+                new QueryTimingDataSource(primary, ReplicaRoutingDataSource.PRIMARY, meterRegistry),
+                Map.of("replica-0", new QueryTimingDataSource(replica, "replica-0", meterRegistry)),
+                "SELECT lag_seconds FROM replica_status",
+                Duration.ofSeconds(5),
+                meterRegistry);
+        routingDataSource.checkReplicas();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primaryJdbc.execute("DROP ALL OBJECTS");
+        replicaJdbc.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        assertEquals("replica", readOnly.execute(status -> currentTarget()));
+        assertEquals("primary", readWrite.execute(status -> currentTarget()));
+        // 트랜잭션 밖의 조회는 primary
+        assertEquals("primary", currentTarget());
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO target VALUES ('written')"));
+        assertEquals(1, primaryJdbc.queryForObject("SELECT COUNT(*) FROM target WHERE name = 'written'", Integer.class));
+        assertEquals(0, replicaJdbc.queryForObject("SELECT COUNT(*) FROM target WHERE name = 'written'", Integer.class));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        replicaJdbc.update("UPDATE replica_status SET lag_seconds = 30");
+        routingDataSource.checkReplicas();
+        assertEquals("primary", readOnly.execute(status -> currentTarget()));
+        assertEquals(30.0, meterRegistry.get("order.datasource.replica.lag").tag("target", "replica-0").gauge().value());
+
+        replicaJdbc.update("UPDATE replica_status SET lag_seconds = 1");
+        routingDataSource.checkReplicas();
+        assertEquals("replica", readOnly.execute(status -> currentTarget()));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        replica.down = true;
+        assertEquals("primary", readOnly.execute(status -> currentTarget()));
+        // 다음 확인 때까지 replica를 다시 시도하지 않음
+        assertEquals("primary", readOnly.execute(status -> currentTarget()));
+        assertEquals(2.0, meterRegistry.get("order.datasource.replica.fallback").counter().count());
+
+        replica.down = false;
+        routingDataSource.checkReplicas();
+        assertEquals("replica", readOnly.execute(status -> currentTarget()));
+    }
+
+    @Test
+    void recordsMetricsPerTarget() {
+        // LazyConnectionDataSourceProxy가 생성될 때 기본 설정을 읽느라 primary에 한 번 연결하므로 차이로 비교
+        double primaryConnections = connections("primary");
+        double replicaConnections = connections("replica-0");
+        long replicaQueries = queries("replica-0");
+
+        readOnly.execute(status -> currentTarget());
+        readWrite.execute(status -> currentTarget());
+        readWrite.execute(status -> currentTarget());
+
+        assertEquals(1.0, connections("replica-0") - replicaConnections);
+        assertEquals(2.0, connections("primary") - primaryConnections);
+        assertEquals(1, queries("replica-0") - replicaQueries);
+        assertEquals(2, queries("primary"));
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("order.datasource.connections").tag("target", target).counter().count();
+    }
+
+    private long queries(String target) {
+        return meterRegistry.get("order.datasource.query").tag("target", target).timer().count();
+    }
+
+    private String currentTarget() {
+        return jdbcTemplate.queryForObject("SELECT name FROM target WHERE name <> 'written'", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE target (name VARCHAR(20))");
+        jdbc.update("INSERT INTO target VALUES (?)", name);
+        jdbc.execute("CREATE TABLE replica_status (lag_seconds INT)");
+        jdbc.update("INSERT INTO replica_status VALUES (0)");
+        return dataSource;
+    }
+
+    // 연결할 수 없는 replica를 흉내내는 DataSource
+    private static class ToggleDataSource extends DelegatingDataSource {
+        volatile boolean down;
+
+        ToggleDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down)
+                throw new SQLException("Connection refused");
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.orderservice.messagequeue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.support.ConfigurableConversionService;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.example.orderservice.messagequeue.OrderSpoolTest.message;
+import static com.example.orderservice.messagequeue.OrderSpoolTest.range;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+KafkaTemplate을 대신하는 mock으로 OrderSpoolReplayer가 spool의 메시지를 순서대로 보내고 commit하는지 확인
+ */
+class OrderSpoolReplayerTest {
+    private static final String TOPIC = "orders";
+
+    @TempDir
+    Path directory;
+
+    private MockEnvironment env;
+    private OrderSpool spool;
+    private OrderSpoolReplayer replayer;
+
+    // Kafka로 보낸(send를 호출한) 메시지, 한 번 실패시킬 메시지
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final Set<String> failOnce = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        env = new MockEnvironment()
+                .withProperty("order.spool.dir", directory.toString())
+                .withProperty("order.spool.segment-size", "256B")
+                .withProperty("order.spool.replay-batch", "10")
+                .withProperty("order.spool.replay-rate", "1000")
+                .withProperty("order.spool.retry-backoff", "10ms");
+        env.setConversionService((ConfigurableConversionService) ApplicationConversionService.getSharedInstance());
+        spool = new OrderSpool(env, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (replayer != null)
+            replayer.destroy();
+        spool.destroy();
+    }
+
+    @Test
+    void replaysSpooledMessagesInOrder() throws Exception {
+        for (int i = 0; i < 25; i++)
+            spool.append(TOPIC, message(i));
+
+        startReplayer();
+        awaitEmpty();
+
+        assertEquals(range(0, 25), sent);
+
+        // commit한 위치는 재시작 후에도 유지된다.
+        replayer.destroy();
+        replayer = null;
+        spool.destroy();
+        spool = new OrderSpool(env, new SimpleMeterRegistry());
+        assertEquals(0, spool.depth());
+    }
+
+    @Test
+    void retriesFromFailedMessage() throws Exception {
+        for (int i = 0; i < 10; i++)
+            spool.append(TOPIC, message(i));
+        failOnce.add("order-03");
+
+        startReplayer();
+        awaitEmpty();
+
+        // 실패한 메시지 앞까지만 commit하고, 실패한 메시지부터 다시 보낸다. (뒤의 메시지는 중복 전송될 수 있음)
+        int retry = sent.lastIndexOf("order-03");
+        assertTrue(retry > sent.indexOf("order-03"));
+        assertEquals(range(0, 3), sent.subList(0, 3));
+        assertEquals(range(3, 10), sent.subList(retry, sent.size()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void startReplayer() {
+        KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            String value = new String((byte[]) invocation.getArgument(1), StandardCharsets.UTF_8);
+            sent.add(value);
+
+            SettableListenableFuture<SendResult<String, byte[]>> future = new SettableListenableFuture<>();
+            if (failOnce.remove(value))
+                future.setException(new IllegalStateException("Broker is not available"));
+            else
+                future.set(null);
+            return future;
+        });
+        replayer = new OrderSpoolReplayer(spool, kafkaTemplate, env, new SimpleMeterRegistry());
+    }
+
+    private void awaitEmpty() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!spool.isEmpty() && System.currentTimeMillis() < deadline)
+            Thread.sleep(20);
+        assertTrue(spool.isEmpty(), "spool was not replayed: " + spool.depth() + " left");
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.orderservice.messagequeue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.support.ConfigurableConversionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+임시 directory에 작은 segment(256 byte)로 OrderSpool을 만들어 segment 교체, commit 후 재시작, 용량 초과,
+Kafka로 보내지 못한 메시지를 응답 전에 spool에 보관하는지 확인
+메시지 하나(topic "orders", value "order-NN")의 frame은 24 byte이므로 segment 하나에 10개씩 들어간다.
+ */
+class OrderSpoolTest {
+    private static final String TOPIC = "orders";
+
+    @TempDir
+    Path directory;
+
+    private OrderSpool spool;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (spool != null)
+            spool.destroy();
+    }
+
+    @Test
+    void appendAndPeekAcrossSegments() throws IOException {
+        spool = open("1KB");
+        for (int i = 0; i < 25; i++)
+            spool.append(TOPIC, message(i));
+
+        assertEquals(25, spool.depth());
+        assertEquals(3, segmentFiles().size());
+        assertEquals(range(0, 25), values(spool.peek(100)));
+        // commit 전까지는 같은 위치부터 다시 읽음
+        assertEquals(range(0, 5), values(spool.peek(5)));
+    }
+
+    @Test
+    void resumesFromCheckpointAfterRestart() throws IOException {
+        spool = open("1KB");
+        for (int i = 0; i < 25; i++)
+            spool.append(TOPIC, message(i));
+
+        List<SpoolRecord> sent = spool.peek(15);
+        spool.commit(sent.get(sent.size() - 1), sent.size());
+        assertEquals(10, spool.depth());
+        // 모두 보낸 첫 번째 segment는 삭제
+        assertEquals(2, segmentFiles().size());
+
+        spool.destroy();
+        spool = open("1KB");
+
+        assertEquals(10, spool.depth());
+        assertEquals(range(15, 25), values(spool.peek(100)));
+
+        // 재시작 후에 추가한 메시지는 남아 있던 메시지 뒤에 이어진다.
+        spool.append(TOPIC, message(25));
+        assertEquals(range(15, 26), values(spool.peek(100)));
+    }
+
+    @Test
+    void fullSpoolRejectsOrdersWith503() {
+        // segment 2개(512 byte)까지만 사용
+        spool = open("512B");
+        for (int i = 0; i < 20; i++)
+            spool.append(TOPIC, message(i));
+
+        assertThrows(IllegalStateException.class, () -> spool.append(TOPIC, message(20)));
+        assertEquals(20, spool.depth());
+
+        // spool에 메시지가 남아 있으므로 Kafka를 사용하지 않고 spool에 추가하려다 거절된다.
+        OrderMessageSender sender = new OrderMessageSender(null, spool, new MockEnvironment());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> sender.send(TOPIC, message(20)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+    }
+
+    @Test
+    void failedSendIsSpooledBeforeReplying() {
+        spool = open("1KB");
+
+        SettableListenableFuture<SendResult<String, byte[]>> failed = new SettableListenableFuture<>();
+        failed.setException(new IllegalStateException("Broker is not available"));
+        OrderMessageSender sender = new OrderMessageSender(kafkaTemplate(failed), spool, new MockEnvironment());
+        sender.send(TOPIC, message(0));
+
+        assertEquals(range(0, 1), values(spool.peek(10)));
+    }
+
+    @Test
+    void unacknowledgedSendIsSpooledAfterTimeout() {
+        spool = open("1KB");
+
+        // Broker가 응답하지 않는 경우
+        MockEnvironment env = new MockEnvironment().withProperty("order.kafka.send-timeout", "50ms");
+        env.setConversionService((ConfigurableConversionService) ApplicationConversionService.getSharedInstance());
+        OrderMessageSender sender = new OrderMessageSender(kafkaTemplate(new SettableListenableFuture<>()), spool, env);
+        sender.send(TOPIC, message(0));
+
+        assertEquals(range(0, 1), values(spool.peek(10)));
+    }
+
+    @Test
+    void messageLargerThanSegmentIsRejectedWith413() {
+        spool = open("1KB");
+        spool.append(TOPIC, message(0));
+
+        assertThrows(IllegalArgumentException.class, () -> spool.append(TOPIC, new byte[300]));
+
+        OrderMessageSender sender = new OrderMessageSender(null, spool, new MockEnvironment());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> sender.send(TOPIC, new byte[300]));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ex.getStatus());
+        assertEquals(1, spool.depth());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, byte[]> kafkaTemplate(ListenableFuture<SendResult<String, byte[]>> future) {
+        KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), any(byte[].class))).thenReturn(future);
+        return kafkaTemplate;
+    }
+
+    private OrderSpool open(String maxSize) {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("order.spool.dir", directory.toString())
+                .withProperty("order.spool.segment-size", "256B")
+                .withProperty("order.spool.max-size", maxSize);
+        env.setConversionService((ConfigurableConversionService) ApplicationConversionService.getSharedInstance());
+        try {
+            return new OrderSpool(env, new SimpleMeterRegistry());
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).collect(Collectors.toList());
+        }
+    }
+
+    static byte[] message(int i) {
+        return String.format("order-%02d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static List<String> range(int from, int to) {
+        return Stream.iterate(from, i -> i + 1).limit(to - from)
+                .map(i -> new String(message(i), StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+    }
+
+    static List<String> values(List<SpoolRecord> records) {
+        return records.stream()
+                .map(record -> new String(record.value, StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.orderservice.messagequeue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/*
+쓰는 중에 종료되어 마지막 record가 손상된 segment를 다시 열었을 때 복구되는지 확인
+ */
+class SpoolSegmentTest {
+    private static final int SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void corruptedTrailingRecordIsDropped() throws IOException {
+        SpoolSegment segment = SpoolSegment.open(directory, 0, SIZE);
+        segment.append("orders", bytes("first"), false);
+        segment.append("orders", bytes("second"), false);
+        int secondStart = SpoolSegment.frameSize("orders", bytes("first"));
+        int end = segment.writePosition();
+        segment.force();
+        segment.close();
+
+        // 두 번째 record의 value 마지막 byte를 바꿔 CRC가 맞지 않게 만든다.
+        overwrite(segment, end - 1, (byte) 'X');
+
+        SpoolSegment reopened = SpoolSegment.open(directory, 0, SIZE);
+        assertEquals(secondStart, reopened.writePosition());
+        assertEquals("first", string(reopened.read(0).value));
+        assertNull(reopened.read(secondStart));
+
+        // 버린 자리부터 다시 쓴다.
+        reopened.append("orders", bytes("third"), false);
+        assertEquals("third", string(reopened.read(secondStart).value));
+        reopened.close();
+    }
+
+    @Test
+    void tornTrailingRecordIsDropped() throws IOException {
+        SpoolSegment segment = SpoolSegment.open(directory, 0, SIZE);
+        segment.append("orders", bytes("first"), false);
+        int secondStart = segment.writePosition();
+        segment.force();
+        segment.close();
+
+        // header(length)만 쓰고 body를 쓰기 전에 종료된 경우
+        ByteBuffer header = ByteBuffer.allocate(4).putInt(20);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.WRITE)) {
+            channel.write(header, secondStart);
+        }
+
+        SpoolSegment reopened = SpoolSegment.open(directory, 0, SIZE);
+        assertEquals(secondStart, reopened.writePosition());
+        assertNotNull(reopened.read(0));
+        assertNull(reopened.read(secondStart));
+        reopened.close();
+
+        // 남아 있던 header는 0으로 지워져 다시 열어도 같은 위치에서 끝난다.
+        SpoolSegment again = SpoolSegment.open(directory, 0, SIZE);
+        assertEquals(secondStart, again.writePosition());
+        again.close();
+    }
+
+    private static void overwrite(SpoolSegment segment, int position, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{value}), position);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
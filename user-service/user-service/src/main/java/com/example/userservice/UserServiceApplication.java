@@ -1,9 +1,14 @@
 package com.example.userservice;
 
+import com.example.userservice.cache.UserCacheEvictEvent;
 import com.example.userservice.error.FeignErrorDecoder;
+import com.example.userservice.security.TokenRevokedEvent;
+import com.example.userservice.vo.FieldProjection;
 import feign.Logger;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.openfeign.EnableFeignClients;
@@ -18,6 +23,8 @@ import org.springframework.web.client.RestTemplate;
 @EnableDiscoveryClient
 // Feign Client를 사용하기 위해 사용. (HTTP API를 쉽게 작성하고 호출하기 위한 라이브러리)
 @EnableFeignClients
+// Spring Cloud Bus로 주고받을 사용자 정의 이벤트(RemoteApplicationEvent)를 등록
+@RemoteApplicationEventScan(basePackageClasses = {UserCacheEvictEvent.class, TokenRevokedEvent.class})
 public class UserServiceApplication {
 
 	public static void main(String[] args) {
@@ -49,11 +56,18 @@ public class UserServiceApplication {
 	}
 
 	// Feign Client의 로그레벨 사용
+	// 실제 기록은 SampledFeignLogger가 feign.logging.sample-rate 비율의 요청에 대해서만 수행한다.
 	@Bean
 	public Logger.Level feignLoggerLevel() {
 		return Logger.Level.FULL;
 	}
 
+	// @JsonFilter가 붙은 응답 VO(ResponseUser)를 필터 지정 없이 직렬화해도 모든 속성을 쓰도록 기본 필터 등록
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer fieldProjectionCustomizer() {
+		return builder -> builder.filters(FieldProjection.defaultFilters());
+	}
+
 	// Feign Client에서 오류를 처리하기 위한 사용자 정의 오류 디코더
 //	@Bean
 //	public FeignErrorDecoder getFeignErrorDecoder() {
@@ -0,0 +1,30 @@
+package com.example.userservice.cache;
+
+import lombok.Getter;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/*
+사용자 정보가 변경되었을 때 Spring Cloud Bus(RabbitMQ)를 통해 모든 user-service 인스턴스에 전달되는 이벤트.
+이벤트를 받은 인스턴스는 자신의 로컬 캐시(UserEntityCache)에서 해당 사용자를 제거한다.
+ */
+@Getter
+public class UserCacheEvictEvent extends RemoteApplicationEvent {
+    private String userId;
+    private String email;
+    // 이벤트를 발행한 시각(epoch millis). 수신 측에서 무효화 지연 시간을 측정하는 데 사용
+    private long issuedAt;
+
+    // Bus가 메시지를 역직렬화할 때 사용하는 기본 생성자
+    @SuppressWarnings("unused")
+    private UserCacheEvictEvent() {
+    }
+
+    public UserCacheEvictEvent(Object source, String originService, Destination destination,
+                               String userId, String email) {
+        super(source, originService, destination);
+        this.userId = userId;
+        this.email = email;
+        this.issuedAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.userservice.cache;
+
+import com.example.userservice.jpa.UserEntity;
+import com.example.userservice.jpa.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+UserRepository 앞단에 두는 로컬 캐시(near-cache).
+사용자 상세 조회, 로그인, 토큰 발행마다 findByUserId / findByEmail이 호출되지만 사용자 정보는 거의 변경되지 않으므로
+userId, email 두 개의 키로 같은 사용자를 캐싱한다.
+사용자 정보가 변경되면 Spring Cloud Bus로 UserCacheEvictEvent를 발행하여 모든 인스턴스의 캐시를 무효화한다.
+(UserEntity가 저장, 변경, 삭제될 때 UserEntityCacheListener가 evict()를 호출)
+ */
+@Component
+@Slf4j
+public class UserEntityCache {
+    UserRepository userRepository;
+    ApplicationEventPublisher publisher;
+    BusProperties busProperties;
+
+    // 이벤트를 전달할 대상 (같은 애플리케이션 이름을 가진 모든 인스턴스)
+    private final Destination destination;
+
+    private final Cache<String, UserEntity> byUserId;
+    private final Cache<String, UserEntity> byEmail;
+    // userId -> byEmail에 캐싱된 email (email이 변경되었을 때 이전 email의 항목을 바로 찾기 위함)
+    private final Map<String, String> emailByUserId = new ConcurrentHashMap<>();
+
+    // 이벤트 발행 시각부터 각 인스턴스에서 캐시가 무효화되기까지 걸린 시간
+    private final Timer invalidationLatency;
+
+    @Autowired
+    public UserEntityCache(UserRepository userRepository,
+                           ApplicationEventPublisher publisher,
+                           BusProperties busProperties,
+                           Destination.Factory destinationFactory,
+                           MeterRegistry meterRegistry,
+                           Environment env) {
+        this.userRepository = userRepository;
+        this.publisher = publisher;
+        this.busProperties = busProperties;
+        this.destination = destinationFactory.getDestination(env.getProperty("spring.application.name") + ":**");
+
+        // 캐시 최대 크기와 TTL. TTL은 Bus 메시지가 유실되었을 때를 대비한 안전장치
+        long maxSize = env.getProperty("user.cache.max-size", Long.class, 10_000L);
+        Duration ttl = env.getProperty("user.cache.ttl", Duration.class, Duration.ofMinutes(10));
+
+        this.byUserId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                // 크기 초과, TTL로 제거된 항목은 역방향 map에서도 제거 (명시적인 무효화는 invalidate()에서 처리)
+                .evictionListener((String email, UserEntity cached, RemovalCause cause) -> {
+                    if (email != null && cached != null)
+                        emailByUserId.remove(cached.getUserId(), email);
+                })
+                .recordStats()
+                .build();
+
+        // cache.gets(result=hit/miss), cache.evictions 등의 지표로 적중률 확인
+        CaffeineCacheMetrics.monitor(meterRegistry, byUserId, "users.byUserId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "users.byEmail");
+
+        this.invalidationLatency = Timer.builder("user.cache.invalidation.latency")
+                .description("Time from publishing a user cache eviction to applying it on an instance")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public UserEntity findByUserId(String userId) {
+        UserEntity cached = byUserId.getIfPresent(userId);
+        if (cached != null)
+            return copyOf(cached);
+
+        UserEntity userEntity = userRepository.findByUserId(userId);
+        put(userEntity);
+
+        return userEntity;
+    }
+
+    public UserEntity findByEmail(String email) {
+        UserEntity cached = byEmail.getIfPresent(email);
+        if (cached != null)
+            return copyOf(cached);
+
+        UserEntity userEntity = userRepository.findByEmail(email);
+        put(userEntity);
+
+        return userEntity;
+    }
+
+    // 캐시에 있는 사용자는 캐시에서, 나머지는 IN 쿼리 한 번으로 조회한 뒤 캐시에 저장
+    // 반환값: userId -> UserEntity (존재하지 않는 userId는 포함되지 않음)
+    public Map<String, UserEntity> findAllByUserIds(Collection<String> userIds) {
+        Map<String, UserEntity> result = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+
+        for (String userId : userIds) {
+            UserEntity cached = byUserId.getIfPresent(userId);
+            if (cached != null)
+                result.put(userId, copyOf(cached));
+            else
+                misses.add(userId);
+        }
+
+        if (!misses.isEmpty()) {
+            for (UserEntity userEntity : userRepository.findByUserIdIn(misses)) {
+                put(userEntity);
+                result.put(userEntity.getUserId(), userEntity);
+            }
+        }
+
+        return result;
+    }
+
+    // 사용자 정보가 변경되었음을 모든 인스턴스에 알림
+    // 로컬 캐시는 먼저 무효화하고, Bus(RabbitMQ)로 보내지 못하면 다른 인스턴스는 TTL이 지나야 갱신된다.
+    public void evict(UserEntity userEntity) {
+        invalidate(userEntity.getUserId(), userEntity.getEmail());
+        try {
+            publisher.publishEvent(new UserCacheEvictEvent(this, busProperties.getId(), destination,
+                    userEntity.getUserId(), userEntity.getEmail()));
+        } catch (RuntimeException ex) {
+            log.warn("Could not publish user cache eviction for {}: {}", userEntity.getUserId(), ex.toString());
+        }
+    }
+
+    @EventListener
+    public void onEvict(UserCacheEvictEvent event) {
+        invalidate(event.getUserId(), event.getEmail());
+
+        long latency = Math.max(0, System.currentTimeMillis() - event.getIssuedAt());
+        invalidationLatency.record(latency, TimeUnit.MILLISECONDS);
+
+        log.debug("User cache evicted: userId={}, origin={}", event.getUserId(), event.getOriginService());
+    }
+
+    private void invalidate(String userId, String email) {
+        if (userId != null) {
+            byUserId.invalidate(userId);
+            // email이 변경되었으면 이전 email로 캐싱된 항목도 제거
+            String cachedEmail = emailByUserId.remove(userId);
+            if (cachedEmail != null)
+                byEmail.invalidate(cachedEmail);
+        }
+        if (email != null)
+            byEmail.invalidate(email);
+    }
+
+    // 존재하지 않는 사용자는 캐싱하지 않는다. (회원가입 직후 조회가 막히지 않도록)
+    private void put(UserEntity userEntity) {
+        if (userEntity == null)
+            return;
+
+        UserEntity snapshot = copyOf(userEntity);
+        byUserId.put(snapshot.getUserId(), snapshot);
+        byEmail.put(snapshot.getEmail(), snapshot);
+        String previousEmail = emailByUserId.put(snapshot.getUserId(), snapshot.getEmail());
+        if (previousEmail != null && !previousEmail.equals(snapshot.getEmail()))
+            byEmail.invalidate(previousEmail);
+    }
+
+    // 캐시에 보관 중인 객체가 호출자에 의해 변경되지 않도록 항상 복사본을 주고받는다.
+    private static UserEntity copyOf(UserEntity source) {
+        UserEntity copy = new UserEntity();
+        copy.setId(source.getId());
+        copy.setEmail(source.getEmail());
+        copy.setName(source.getName());
+        copy.setUserId(source.getUserId());
+        copy.setEncryptedPwd(source.getEncryptedPwd());
+        return copy;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.userservice.cache;
+
+import com.example.userservice.jpa.UserEntity;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/*
+UserEntity가 저장, 변경, 삭제될 때마다 UserEntityCache.evict()를 호출하는 JPA Entity Listener.
+사용자 정보를 변경하는 코드마다 evict()를 호출하지 않아도 모든 인스턴스의 캐시가 무효화된다.
+ - 트랜잭션 안이면 commit된 뒤에 무효화한다. (commit 전에 다른 인스턴스가 이전 값을 다시 캐싱하지 않도록)
+ - JPQL bulk update(@Modifying)처럼 엔티티를 거치지 않는 변경은 감지하지 못하므로 직접 evict()를 호출해야 한다.
+ */
+@Component
+public class UserEntityCacheListener {
+    // UserEntityCache -> UserRepository -> EntityManagerFactory -> 이 Listener 순서로 생성되므로 나중에 조회
+    ObjectProvider<UserEntityCache> userEntityCache;
+
+    public UserEntityCacheListener(ObjectProvider<UserEntityCache> userEntityCache) {
+        this.userEntityCache = userEntityCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(UserEntity userEntity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userEntityCache.getObject().evict(userEntity);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userEntityCache.getObject().evict(userEntity);
+            }
+        });
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.userservice.client;
 
+import com.example.userservice.vo.RequestOrderLookup;
 import com.example.userservice.vo.ResponseOrder;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.List;
+import java.util.Map;
 
 // Feign Client를 사용하여 order-service에서 제공하는 엔드포인트 호출
 // name: 호출할 서비스의 이름
@@ -15,4 +19,8 @@ public interface OrderServiceClient {
     @GetMapping("/order-service/{userId}/orders")
     List<ResponseOrder> getOrders(@PathVariable String userId);
 
+    // 여러 사용자의 주문 내역을 한 번의 호출로 가져옴 (userId -> 주문 목록)
+    @PostMapping("/order-service/orders/lookup")
+    Map<String, List<ResponseOrder>> getOrdersByUserIds(@RequestBody RequestOrderLookup request);
+
 }
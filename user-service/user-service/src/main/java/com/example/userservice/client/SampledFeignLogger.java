@@ -0,0 +1,79 @@
+package com.example.userservice.client;
+
+import feign.Logger;
+import feign.Request;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+요청 중 일부(sample-rate)만 기록하는 Feign Logger.
+Logger.Level.FULL은 모든 요청/응답의 헤더와 body를 기록하고 응답 body를 메모리에 다시 버퍼링하므로
+트래픽이 많을 때 비용이 크다. 샘플링되지 않은 요청은 응답을 버퍼링하지 않고 그대로 돌려주며,
+기록되는 body는 max-body-bytes까지만 남긴다.
+ */
+@Slf4j
+public class SampledFeignLogger extends Logger {
+    // 현재 스레드에서 처리 중인 요청이 샘플링 대상인지 여부 (logRequest -> logAndRebufferResponse)
+    private static final ThreadLocal<Boolean> SAMPLED = new ThreadLocal<>();
+
+    private final double sampleRate;
+    private final int maxBodyBytes;
+
+    public SampledFeignLogger(double sampleRate, int maxBodyBytes) {
+        this.sampleRate = sampleRate;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected void logRequest(String configKey, Level logLevel, Request request) {
+        boolean sampled = log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        SAMPLED.set(sampled);
+
+        if (sampled)
+            super.logRequest(configKey, logLevel, request);
+    }
+
+    @Override
+    protected void logRetry(String configKey, Level logLevel) {
+        if (Boolean.TRUE.equals(SAMPLED.get()))
+            super.logRetry(configKey, logLevel);
+    }
+
+    @Override
+    protected Response logAndRebufferResponse(String configKey, Level logLevel, Response response,
+                                              long elapsedTime) throws IOException {
+        boolean sampled = Boolean.TRUE.equals(SAMPLED.get());
+        SAMPLED.remove();
+
+        // 샘플링되지 않은 응답은 body를 읽지 않고 그대로 반환
+        if (!sampled)
+            return response;
+
+        return super.logAndRebufferResponse(configKey, logLevel, response, elapsedTime);
+    }
+
+    @Override
+    protected IOException logIOException(String configKey, Level logLevel, IOException ioe, long elapsedTime) {
+        SAMPLED.remove();
+
+        // 오류는 샘플링 여부와 관계없이 기록
+        return super.logIOException(configKey, logLevel, ioe, elapsedTime);
+    }
+
+    @Override
+    protected void log(String configKey, String format, Object... args) {
+        if (!log.isDebugEnabled())
+            return;
+
+        // body 등 긴 문자열 인자는 max-body-bytes까지만 기록
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof String && ((String) args[i]).length() > maxBodyBytes)
+                args[i] = ((String) args[i]).substring(0, maxBodyBytes) + "...(truncated)";
+        }
+
+        log.debug(String.format(methodTag(configKey) + format, args));
+    }
+}
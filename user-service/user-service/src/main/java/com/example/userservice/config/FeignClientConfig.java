@@ -0,0 +1,174 @@
+package com.example.userservice.config;
+
+import com.example.userservice.client.SampledFeignLogger;
+import feign.Logger;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+Feign Client의 HTTP 전송 계층 구성.
+기본 HttpURLConnection 대신 커넥션 풀을 사용하는 Apache HttpClient 5를 사용하고
+풀 사용량, 연결(connect) 시간, 첫 바이트 수신 시간(TTFB), 요청/응답 크기를 지표로 노출한다.
+풀 크기와 타임아웃은 Spring Cloud OpenFeign의 feign.httpclient.* 설정을 그대로 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(value = "feign.httpclient.hc5.enabled", havingValue = "true")
+public class FeignClientConfig {
+    // HttpContext에 요청 시작 시각을 저장할 때 사용하는 키
+    private static final String REQUEST_START_ATTR = "feign.request.start";
+
+    @Bean
+    public PoolingHttpClientConnectionManager feignConnectionManager(FeignHttpClientProperties httpClientProperties,
+                                                                     MeterRegistry meterRegistry) {
+        Timer connectTimer = Timer.builder("feign.client.connect")
+                .description("Time to open a new TCP connection for Feign clients")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        // 새 커넥션을 맺을 때마다 소요 시간을 측정하는 소켓 팩토리
+        ConnectionSocketFactory timedPlainSocketFactory = new PlainConnectionSocketFactory() {
+            @Override
+            public Socket connectSocket(TimeValue connectTimeout, Socket socket, HttpHost host,
+                                        InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                        HttpContext context) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+                } finally {
+                    connectTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+
+        FeignHttpClientProperties.Hc5Properties hc5 = httpClientProperties.getHc5();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", timedPlainSocketFactory)
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                        .build(),
+                PoolConcurrencyPolicy.valueOf(hc5.getPoolConcurrencyPolicy().name()),
+                PoolReusePolicy.valueOf(hc5.getPoolReusePolicy().name()),
+                TimeValue.of(httpClientProperties.getTimeToLive(), httpClientProperties.getTimeToLiveUnit()));
+        // 전체 커넥션 수와 라우트(대상 호스트:포트)별 커넥션 수
+        connectionManager.setMaxTotal(httpClientProperties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(httpClientProperties.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoTimeout(Timeout.of(hc5.getSocketTimeout(), hc5.getSocketTimeoutUnit()))
+                .build());
+
+        // 커넥션 풀 사용 현황
+        Gauge.builder("feign.client.pool.leased", connectionManager, m -> m.getTotalStats().getLeased())
+                .description("Connections currently leased from the Feign connection pool")
+                .register(meterRegistry);
+        Gauge.builder("feign.client.pool.available", connectionManager, m -> m.getTotalStats().getAvailable())
+                .description("Idle connections kept alive in the Feign connection pool")
+                .register(meterRegistry);
+        Gauge.builder("feign.client.pool.pending", connectionManager, m -> m.getTotalStats().getPending())
+                .description("Requests waiting for a connection from the Feign connection pool")
+                .register(meterRegistry);
+        Gauge.builder("feign.client.pool.max", connectionManager, m -> m.getTotalStats().getMax())
+                .description("Maximum number of connections in the Feign connection pool")
+                .register(meterRegistry);
+
+        return connectionManager;
+    }
+
+    // FeignBlockingLoadBalancerClient가 이 HttpClient를 감싸서 사용한다.
+    @Bean
+    public CloseableHttpClient feignHttpClient(PoolingHttpClientConnectionManager feignConnectionManager,
+                                               FeignHttpClientProperties httpClientProperties,
+                                               MeterRegistry meterRegistry,
+                                               Environment env) {
+        // 응답에 Keep-Alive 헤더가 없을 때 유휴 커넥션을 재사용할 시간
+        Duration keepAlive = env.getProperty("feign.httpclient.keep-alive", Duration.class, Duration.ofSeconds(30));
+
+        // 응답 상태 코드 -> TTFB Timer (요청마다 registry에서 조회하지 않도록 보관)
+        Map<Integer, Timer> ttfbTimers = new ConcurrentHashMap<>();
+        DistributionSummary requestSize = DistributionSummary.builder("feign.client.request.size")
+                .description("Feign request body size")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        DistributionSummary responseSize = DistributionSummary.builder("feign.client.response.size")
+                .description("Feign response body size")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        return HttpClients.custom()
+                .disableCookieManagement()
+                .setConnectionManager(feignConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(httpClientProperties.getConnectionTimeout()))
+                        .setConnectionRequestTimeout(Timeout.of(httpClientProperties.getHc5().getConnectionRequestTimeout(),
+                                httpClientProperties.getHc5().getConnectionRequestTimeoutUnit()))
+                        .setRedirectsEnabled(httpClientProperties.isFollowRedirects())
+                        .setDefaultKeepAlive(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                        .build())
+                // 요청 시작 시각과 요청 크기 기록
+                .addRequestInterceptorFirst((request, entity, context) -> {
+                    context.setAttribute(REQUEST_START_ATTR, System.nanoTime());
+                    if (entity != null && entity.getContentLength() >= 0)
+                        requestSize.record(entity.getContentLength());
+                })
+                // 응답 헤더를 받은 시점까지의 시간(TTFB)과 응답 크기 기록
+                .addResponseInterceptorLast((response, entity, context) -> {
+                    Object start = context.getAttribute(REQUEST_START_ATTR);
+                    if (start instanceof Long) {
+                        ttfbTimers.computeIfAbsent(response.getCode(), status -> ttfbTimer(meterRegistry, status))
+                                .record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+                    }
+                    if (entity != null && entity.getContentLength() >= 0)
+                        responseSize.record(entity.getContentLength());
+                })
+                .build();
+    }
+
+    private static Timer ttfbTimer(MeterRegistry meterRegistry, int status) {
+        return Timer.builder("feign.client.ttfb")
+                .description("Time from sending a Feign request to receiving the response head")
+                .tag("status", String.valueOf(status))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // 모든 요청/응답을 남기는 대신 일부만 샘플링하고 body는 최대 크기까지만 기록하는 Logger
+    @Bean
+    public Logger feignLogger(Environment env) {
+        return new SampledFeignLogger(
+                env.getProperty("feign.logging.sample-rate", Double.class, 0.01),
+                env.getProperty("feign.logging.max-body-bytes", Integer.class, 1024));
+    }
+}
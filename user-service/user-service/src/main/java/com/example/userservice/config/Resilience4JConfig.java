@@ -13,6 +13,8 @@ import java.time.Duration;
 @Configuration
 public class Resilience4JConfig {
     // CircuitBreaker, TimeLimiter 구성 커스터마이징
+    // CircuitBreakerFactory로 생성하는 CircuitBreaker의 기본값
+    // order-service 호출은 호출별 프로파일(RemoteCallGuard, user.resilience.*)을 사용한다.
     @Bean
     public Customizer<Resilience4JCircuitBreakerFactory> globalCustomConfiguration() {
         // CircuitBreaker가 구성 설정
@@ -28,7 +30,7 @@ public class Resilience4JConfig {
                 .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
                 // CirbuitBreaker가 닫힐 때 호출 결과를 기록하는데 사용되는 슬라이딩 창의 크기를 구성
                 // default: 100
-                .slidingWindowType(2)
+                .slidingWindowSize(2)
                 .build();
 
         // TimeLimiter 구성설정
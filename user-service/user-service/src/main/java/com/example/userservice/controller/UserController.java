@@ -2,34 +2,57 @@ package com.example.userservice.controller;
 
 import com.example.userservice.dto.UserDto;
 import com.example.userservice.jpa.UserEntity;
+import com.example.userservice.security.TokenRevoker;
 import com.example.userservice.service.UserService;
+import com.example.userservice.vo.FieldProjection;
 import com.example.userservice.vo.Greeting;
 import com.example.userservice.vo.RequestUser;
+import com.example.userservice.vo.RequestUserLookup;
 import com.example.userservice.vo.ResponseUser;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/")
 public class UserController {
     private Environment env;
     private UserService userService;
+    private TokenRevoker tokenRevoker;
+    // NDJSON 스트리밍 응답에서 사용자를 한 건씩 직렬화하기 위한 writer
+    private ObjectWriter userWriter;
 
     @Autowired
     private Greeting greeting;
 
     @Autowired
-    public UserController(Environment env, UserService userService) {
+    public UserController(Environment env, UserService userService, TokenRevoker tokenRevoker,
+                          ObjectMapper objectMapper) {
         this.env = env;
         this.userService = userService;
+        this.tokenRevoker = tokenRevoker;
+        // 매 건마다 flush 하지 않고 JsonGenerator 버퍼가 찰 때 출력 스트림으로 내보냄
+        this.userWriter = objectMapper.writerFor(ResponseUser.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     // 서버의 상태 체크
@@ -67,25 +90,111 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseUser);
     }
 
+    // keyset 페이지네이션: cursor(이전 페이지의 X-Next-Cursor 값) 이후의 사용자를 size 만큼 반환
+    // 다음 페이지가 있을 수 있으면 X-Next-Cursor 헤더에 다음 요청에 사용할 cursor를 담아준다.
     @GetMapping("/users")
-    public ResponseEntity<List<ResponseUser>> getUsers() {
-        Iterable<UserEntity> userList = userService.getUserByAll();
+    public ResponseEntity<List<ResponseUser>> getUsers(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                       @RequestParam(value = "size", required = false) Integer size) {
+        int defaultSize = env.getProperty("user.listing.page-size", Integer.class, 100);
+        int maxSize = env.getProperty("user.listing.max-page-size", Integer.class, 1000);
+        int pageSize = Math.min(Math.max(size == null ? defaultSize : size, 1), maxSize);
 
-        List<ResponseUser> result = new ArrayList<>();
-        userList.forEach(v -> {
-            result.add(new ModelMapper().map(v, ResponseUser.class));
-        });
+        List<UserEntity> userList = userService.getUsersAfter(cursor, pageSize);
 
-        return ResponseEntity.status(HttpStatus.OK).body(result);
+        List<ResponseUser> result = new ArrayList<>(userList.size());
+        userList.forEach(v -> result.add(toResponseUser(v)));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (userList.size() == pageSize) {
+            response.header("X-Next-Cursor", String.valueOf(userList.get(userList.size() - 1).getId()));
+        }
+
+        return response.body(result);
     }
 
+    // Accept: application/x-ndjson 요청 시 전체 사용자를 한 줄에 한 명씩(NDJSON) 스트리밍
+    // DB 커서로 읽은 사용자를 바로 응답에 쓰기 때문에 사용자 수와 관계없이 메모리 사용량이 일정하다.
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = userWriter.getFactory().createGenerator(outputStream);
+            userService.streamAllUsers(userEntity -> {
+                try {
+                    userWriter.writeValue(generator, toResponseUser(userEntity));
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.flush();
+        };
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // fields: 응답에 포함할 속성 (ex. ?fields=userId,name). orders를 요청하지 않으면 order-service를 호출하지 않는다.
     @GetMapping("/users/{userId}")
-    public ResponseEntity<ResponseUser> getUser(@PathVariable("userId") String userId) {
-        UserDto userDto = userService.getUserByUserId(userId);
+    public ResponseEntity<MappingJacksonValue> getUser(@PathVariable("userId") String userId,
+                                                       @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> projection = FieldProjection.parse(fields);
+        UserDto userDto = userService.getUserByUserId(userId, FieldProjection.includes(projection, "orders"));
 
         ResponseUser returnValue = new ModelMapper().map(userDto, ResponseUser.class);
 
-        return ResponseEntity.status(HttpStatus.OK).body(returnValue);
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(FieldProjection.project(returnValue, FieldProjection.USER_FILTER, projection));
+    }
+
+    // 서비스 간 호출용 일괄 조회: 여러 userId의 사용자 정보를 한 번에 반환
+    // includeOrders가 true이면 order-service도 한 번만 호출하여 주문 내역을 채움
+    @PostMapping("/users/lookup")
+    public ResponseEntity<List<ResponseUser>> lookupUsers(@Valid @RequestBody RequestUserLookup request) {
+        int maxIds = env.getProperty("user.lookup.max-ids", Integer.class, 100);
+        if (request.getUserIds().size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many user ids (max " + maxIds + ")");
+        }
+
+        List<UserDto> users = userService.getUsersByUserIds(request.getUserIds(), request.isIncludeOrders());
+
+        ModelMapper mapper = new ModelMapper();
+        List<ResponseUser> result = new ArrayList<>(users.size());
+        users.forEach(v -> result.add(mapper.map(v, ResponseUser.class)));
+
+        return ResponseEntity.status(HttpStatus.OK).body(result);
+    }
+
+    // 로그아웃: 요청에 사용된 토큰을 폐기
+    // Gateway(AuthorizationHeaderFilter)가 검증한 토큰의 jti와 만료 시각을 내부 헤더로 전달한다.
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "X-Token-Id", required = false) String tokenId,
+                                       @RequestHeader(value = "X-Token-Expires", required = false) Long expiresAt) {
+        if (tokenId == null || expiresAt == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Token id is not available");
+        }
+
+        tokenRevoker.revokeToken(tokenId, expiresAt);
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    // 사용자의 모든 토큰을 폐기 (본인 확인은 Gateway의 AuthorizationHeaderFilter subjectPath로 처리)
+    @DeleteMapping("/users/{userId}/tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable("userId") String userId) {
+        tokenRevoker.revokeAllTokens(userId);
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    // 목록 조회는 호출 빈도와 건수가 많으므로 ModelMapper(리플렉션) 대신 필요한 필드만 직접 복사
+    private static ResponseUser toResponseUser(UserEntity userEntity) {
+        ResponseUser responseUser = new ResponseUser();
+        responseUser.setEmail(userEntity.getEmail());
+        responseUser.setName(userEntity.getName());
+        responseUser.setUserId(userEntity.getUserId());
+        return responseUser;
     }
 
 }
@@ -1,5 +1,6 @@
 package com.example.userservice.jpa;
 
+import com.example.userservice.cache.UserEntityCacheListener;
 import lombok.Data;
 
 import javax.persistence.*;
@@ -8,6 +9,8 @@ import javax.persistence.*;
 @Data
 @Entity
 @Table(name = "users")
+// 저장, 변경, 삭제 시 모든 인스턴스의 UserEntityCache 무효화
+@EntityListeners(UserEntityCacheListener.class)
 public class UserEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
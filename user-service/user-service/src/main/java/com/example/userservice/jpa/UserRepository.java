@@ -1,8 +1,20 @@
 package com.example.userservice.jpa;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 // CrudRepository 인터페이스를 상속함으로써, UserRepository는 UserEntity에 대한 CRUD 연산을 수행할 수 있음
 @Repository
 public interface UserRepository extends CrudRepository<UserEntity, Long> {
@@ -10,4 +22,20 @@ public interface UserRepository extends CrudRepository<UserEntity, Long> {
     UserEntity findByUserId(String userId);
 
     UserEntity findByEmail(String username);
+
+    // 여러 사용자를 IN 쿼리 한 번으로 조회
+    List<UserEntity> findByUserIdIn(Collection<String> userIds);
+
+    // id 기준 keyset 페이지네이션: 마지막으로 받은 id 이후의 사용자를 size 만큼 조회 (OFFSET 스캔 없음)
+    List<UserEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // 전체 사용자를 한 번에 메모리에 올리지 않고 forward-only 커서로 한 건씩 읽어옴
+    // 반드시 트랜잭션 안에서 사용하고, 사용 후 Stream을 닫아야 한다.
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select u from UserEntity u order by u.id")
+    Stream<UserEntity> streamAllByOrderByIdAsc();
 }
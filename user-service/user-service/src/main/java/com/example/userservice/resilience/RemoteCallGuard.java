@@ -0,0 +1,313 @@
+package com.example.userservice.resilience;
+
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedThreadPoolBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+원격 호출(Feign Client)을 이름별 Resilience 프로파일로 보호한다.
+호출 1회는 CircuitBreaker(Bulkhead(TimeLimiter(call))) 순서로 감싸고, 그 바깥에서 전역 재시도 예산(RetryBudget) 안에서만 재시도한다.
+판단 결과는 user.resilience.calls{client, outcome}, user.resilience.retries{client, outcome} 지표로 기록한다.
+ - outcome: success, failure, rejected(bulkhead), timed_out, short_circuited(circuit open), budget_exhausted
+ */
+@Component
+@Slf4j
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class RemoteCallGuard {
+    ResilienceProperties properties;
+    MeterRegistry meterRegistry;
+
+    // Resilience4j 인스턴스를 등록하면 resilience4j.* 지표가 자동으로 노출된다.
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+    private final ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry = ThreadPoolBulkheadRegistry.ofDefaults();
+    private final TimeLimiterRegistry timeLimiterRegistry = TimeLimiterRegistry.ofDefaults();
+
+    private final Map<String, ClientGuard> guards = new ConcurrentHashMap<>();
+    private volatile RetryBudget retryBudget;
+
+    @Autowired
+    public RemoteCallGuard(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(properties.getRetryBudget());
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        TaggedThreadPoolBulkheadMetrics.ofThreadPoolBulkheadRegistry(threadPoolBulkheadRegistry).bindTo(meterRegistry);
+        TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(timeLimiterRegistry).bindTo(meterRegistry);
+    }
+
+    // client 프로파일로 call을 실행하고, 최종적으로 실패하면 fallback 결과를 반환
+    public <T> T run(String client, Supplier<T> call, Function<Throwable, T> fallback) {
+        ClientGuard guard = guards.computeIfAbsent(client, name -> new ClientGuard(name, properties.profileFor(name)));
+        RetryBudget budget = retryBudget;
+        budget.recordRequest();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = guard.circuitBreaker.executeCallable(() -> guard.execute(call));
+                guard.success.increment();
+                return result;
+            } catch (Exception e) {
+                Throwable cause = unwrap(e);
+
+                if (attempt < guard.profile.getMaxAttempts() && isRetryable(cause)) {
+                    if (budget.tryAcquire()) {
+                        guard.retried.increment();
+                        if (sleep(guard.profile)) {
+                            continue;
+                        }
+                    } else {
+                        guard.budgetExhausted.increment();
+                    }
+                }
+
+                guard.record(cause);
+                log.debug("Remote call failed: client={}, attempt={}, cause={}", client, attempt, cause.toString());
+                return fallback.apply(cause);
+            }
+        }
+    }
+
+    // 설정이 갱신되면 값이 바뀐 프로파일만 다시 생성한다. (바뀌지 않은 CircuitBreaker의 상태는 유지)
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        retryBudget = new RetryBudget(properties.getRetryBudget());
+
+        guards.replaceAll((name, guard) -> {
+            ResilienceProperties.Profile profile = properties.profileFor(name);
+            if (profile.equals(guard.profile))
+                return guard;
+
+            log.info("Resilience profile changed: client={}, profile={}", name, profile);
+            guard.close();
+            return new ClientGuard(name, profile);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        guards.values().forEach(ClientGuard::close);
+    }
+
+    // 연결 실패, 제한 시간 초과, 5xx 응답만 재시도한다. (Bulkhead 거절, Circuit open, 4xx는 재시도하지 않음)
+    private static boolean isRetryable(Throwable t) {
+        return t instanceof RetryableException || t instanceof TimeoutException || isServerError(t);
+    }
+
+    private static boolean isServerError(Throwable t) {
+        return t instanceof FeignException && ((FeignException) t).status() >= 500;
+    }
+
+    // 재시도 간격에 무작위 지연(jitter)을 더해 여러 요청이 동시에 재시도하지 않도록 한다.
+    private static boolean sleep(ResilienceProperties.Profile profile) {
+        long waitMillis = profile.getRetryWait().toMillis();
+        if (waitMillis <= 0)
+            return true;
+
+        try {
+            Thread.sleep(waitMillis + ThreadLocalRandom.current().nextLong(waitMillis + 1));
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null)
+            t = t.getCause();
+
+        return t;
+    }
+
+    // 프로파일 하나에 해당하는 Resilience4j 인스턴스와 지표
+    private class ClientGuard {
+        final String name;
+        final ResilienceProperties.Profile profile;
+
+        final CircuitBreaker circuitBreaker;
+        final TimeLimiter timeLimiter;
+        final Bulkhead bulkhead;
+        final ThreadPoolBulkhead threadPoolBulkhead;
+        // SEMAPHORE 모드에서 제한 시간을 적용하기 위해 호출을 실행하는 스레드 (최대 maxConcurrentCalls개)
+        final ThreadPoolExecutor callExecutor;
+
+        final Counter success;
+        final Counter failure;
+        final Counter rejected;
+        final Counter timedOut;
+        final Counter shortCircuited;
+        final Counter retried;
+        final Counter budgetExhausted;
+
+        ClientGuard(String name, ResilienceProperties.Profile profile) {
+            this.name = name;
+            this.profile = profile;
+
+            circuitBreakerRegistry.remove(name);
+            this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(name, CircuitBreakerConfig.custom()
+                    .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                    .slidingWindowSize(profile.getSlidingWindowSize())
+                    .minimumNumberOfCalls(profile.getMinimumNumberOfCalls())
+                    .failureRateThreshold(profile.getFailureRateThreshold())
+                    .slowCallRateThreshold(profile.getSlowCallRateThreshold())
+                    .slowCallDurationThreshold(profile.getSlowCallDurationThreshold())
+                    .waitDurationInOpenState(profile.getWaitDurationInOpenState())
+                    // 4xx 응답은 상대 서비스의 장애가 아니므로 실패로 집계하지 않는다.
+                    .recordException(t -> !(t instanceof FeignException) || isServerError(t)
+                            || t instanceof RetryableException)
+                    .ignoreExceptions(BulkheadFullException.class)
+                    .build());
+
+            timeLimiterRegistry.remove(name);
+            this.timeLimiter = timeLimiterRegistry.timeLimiter(name, TimeLimiterConfig.custom()
+                    .timeoutDuration(profile.getTimeout())
+                    .cancelRunningFuture(true)
+                    .build());
+
+            if (profile.getBulkhead() == ResilienceProperties.BulkheadType.THREADPOOL) {
+                threadPoolBulkheadRegistry.remove(name);
+                this.threadPoolBulkhead = threadPoolBulkheadRegistry.bulkhead(name, ThreadPoolBulkheadConfig.custom()
+                        .coreThreadPoolSize(profile.getMaxConcurrentCalls())
+                        .maxThreadPoolSize(profile.getMaxConcurrentCalls())
+                        .queueCapacity(profile.getQueueCapacity())
+                        .build());
+                this.bulkhead = null;
+            } else {
+                bulkheadRegistry.remove(name);
+                this.bulkhead = bulkheadRegistry.bulkhead(name, BulkheadConfig.custom()
+                        .maxConcurrentCalls(profile.getMaxConcurrentCalls())
+                        .maxWaitDuration(profile.getMaxWait())
+                        .build());
+                this.threadPoolBulkhead = null;
+            }
+            this.callExecutor = bulkhead != null ? callExecutor(name, profile.getMaxConcurrentCalls()) : null;
+
+            this.success = counter("user.resilience.calls", "success");
+            this.failure = counter("user.resilience.calls", "failure");
+            this.rejected = counter("user.resilience.calls", "rejected");
+            this.timedOut = counter("user.resilience.calls", "timed_out");
+            this.shortCircuited = counter("user.resilience.calls", "short_circuited");
+            this.retried = counter("user.resilience.retries", "retried");
+            this.budgetExhausted = counter("user.resilience.retries", "budget_exhausted");
+        }
+
+        // Bulkhead 안에서 제한 시간을 두고 호출
+        <T> T execute(Supplier<T> call) throws Exception {
+            if (threadPoolBulkhead != null) {
+                // 제한 시간이 지나도 전용 스레드의 호출은 HTTP socket timeout까지 계속될 수 있다.
+                return timeLimiter.executeFutureSupplier(
+                        () -> threadPoolBulkhead.executeSupplier(call).toCompletableFuture());
+            }
+
+            // 제한 시간이 지나 TimeLimiter가 기다리기를 그만두어도 호출은 HTTP socket timeout까지 계속될 수 있으므로
+            // 허용(permit)은 호출 스레드가 실제로 끝났을 때 반납한다. (cancel로 실행 전에 취소된 경우에도 반납)
+            bulkhead.acquirePermission();
+            FutureTask<T> task = new FutureTask<>(call::get);
+            try {
+                callExecutor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        bulkhead.onComplete();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 프로파일이 갱신되어 executor가 종료된 경우
+                bulkhead.onComplete();
+                throw BulkheadFullException.createBulkheadFullException(bulkhead);
+            }
+            return timeLimiter.executeFutureSupplier(() -> task);
+        }
+
+        void record(Throwable cause) {
+            if (cause instanceof CallNotPermittedException)
+                shortCircuited.increment();
+            else if (cause instanceof BulkheadFullException)
+                rejected.increment();
+            else if (cause instanceof TimeoutException)
+                timedOut.increment();
+            else
+                failure.increment();
+        }
+
+        void close() {
+            // Bulkhead 유형이 바뀌는 경우를 위해 두 레지스트리에서 모두 제거
+            bulkheadRegistry.remove(name);
+            threadPoolBulkheadRegistry.remove(name);
+            // 진행 중인 호출은 끝날 때까지 두고 새 호출만 받지 않음
+            if (callExecutor != null)
+                callExecutor.shutdown();
+            if (threadPoolBulkhead != null) {
+                try {
+                    threadPoolBulkhead.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close bulkhead: client={}", name, e);
+                }
+            }
+        }
+
+        // 허용 수만큼의 스레드를 사용하고, 허용을 반납한 스레드가 다음 작업을 받기 전의 짧은 순간에 들어온 작업은 큐에서 기다린다.
+        // 사용하지 않는 스레드는 1분 뒤 종료
+        private ThreadPoolExecutor callExecutor(String name, int maxThreads) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(maxThreads), runnable -> {
+                        Thread thread = new Thread(runnable, "remote-call-" + name + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+        private Counter counter(String meterName, String outcome) {
+            return Counter.builder(meterName)
+                    .tag("client", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.userservice.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+원격 호출별 장애 대응(Resilience) 프로파일 설정 (user.resilience.*)
+clients.<이름>으로 호출마다 프로파일을 지정하며, 지정되지 않은 호출은 clients.default를 사용한다.
+/actuator/refresh 또는 /actuator/busrefresh로 변경된 값은 RemoteCallGuard에 즉시 반영된다.
+ */
+@Data
+@ConfigurationProperties(prefix = "user.resilience")
+public class ResilienceProperties {
+    private Map<String, Profile> clients = new HashMap<>();
+    private Budget retryBudget = new Budget();
+
+    public Profile profileFor(String client) {
+        Profile profile = clients.get(client);
+        if (profile == null)
+            profile = clients.get("default");
+
+        return profile != null ? profile : new Profile();
+    }
+
+    @Data
+    public static class Profile {
+        // Bulkhead: SEMAPHORE는 호출 스레드에서 동시 호출 수만 제한하고, THREADPOOL은 전용 스레드 풀과 대기 큐를 사용
+        private BulkheadType bulkhead = BulkheadType.SEMAPHORE;
+        private int maxConcurrentCalls = 25;
+        // SEMAPHORE: 허용 수를 넘었을 때 빈 자리를 기다리는 최대 시간 (0이면 즉시 거절)
+        private Duration maxWait = Duration.ZERO;
+        // THREADPOOL: 대기 큐 크기
+        private int queueCapacity = 25;
+
+        // TimeLimiter: 호출 1회의 제한 시간
+        private Duration timeout = Duration.ofSeconds(1);
+
+        // Retry: 최초 호출을 포함한 최대 시도 횟수와 재시도 사이 대기 시간
+        private int maxAttempts = 2;
+        private Duration retryWait = Duration.ofMillis(50);
+
+        // CircuitBreaker
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallDurationThreshold = Duration.ofMillis(800);
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(5);
+    }
+
+    // 재시도 예산: 최근 window 동안의 요청 수 * ratio + 초당 min-per-second 만큼만 재시도를 허용
+    // 장애 상황에서 모든 호출이 재시도되어 부하가 몇 배로 늘어나는 것(retry storm)을 막는다.
+    @Data
+    public static class Budget {
+        private double ratio = 0.1;
+        private int minPerSecond = 5;
+        private Duration window = Duration.ofSeconds(10);
+    }
+
+    public enum BulkheadType {
+        SEMAPHORE, THREADPOOL
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.userservice.resilience;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+모든 원격 호출이 공유하는 재시도 예산.
+1초 단위 버킷을 window 길이만큼 순환하며 요청 수와 재시도 수를 센다.
+동시에 버킷이 교체되는 경우 몇 건이 누락될 수 있지만 예산은 근사치면 충분하므로 잠금을 사용하지 않는다.
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final long minPerWindow;
+    private final int windowSeconds;
+
+    // 버킷별 기준 시각(초), 요청 수, 재시도 수
+    private final AtomicLongArray epochs;
+    private final AtomicLongArray requests;
+    private final AtomicLongArray retries;
+
+    public RetryBudget(ResilienceProperties.Budget budget) {
+        this.ratio = budget.getRatio();
+        this.windowSeconds = (int) Math.max(1, budget.getWindow().getSeconds());
+        this.minPerWindow = (long) budget.getMinPerSecond() * windowSeconds;
+        this.epochs = new AtomicLongArray(windowSeconds);
+        this.requests = new AtomicLongArray(windowSeconds);
+        this.retries = new AtomicLongArray(windowSeconds);
+    }
+
+    public void recordRequest() {
+        requests.incrementAndGet(bucket(currentSecond()));
+    }
+
+    // 예산이 남아 있으면 재시도 1회를 차감하고 true 반환
+    public boolean tryAcquire() {
+        long now = currentSecond();
+        long requestCount = 0;
+        long retryCount = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (now - epochs.get(i) < windowSeconds) {
+                requestCount += requests.get(i);
+                retryCount += retries.get(i);
+            }
+        }
+
+        if (retryCount >= minPerWindow + (long) (requestCount * ratio))
+            return false;
+
+        retries.incrementAndGet(bucket(now));
+        return true;
+    }
+
+    // 현재 초에 해당하는 버킷 인덱스. 오래된 버킷이면 비우고 재사용한다.
+    private int bucket(long second) {
+        int index = (int) (second % windowSeconds);
+        long epoch = epochs.get(index);
+        if (epoch != second && epochs.compareAndSet(index, epoch, second)) {
+            requests.set(index, 0);
+            retries.set(index, 0);
+        }
+
+        return index;
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
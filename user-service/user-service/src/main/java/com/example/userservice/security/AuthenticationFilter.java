@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.UUID;
 
 // Spring Security를 이용한 로그인 요청 발생 시 작업을 처리해 주는 Custom Filter 클래스
 @Slf4j
@@ -87,11 +88,15 @@ public class AuthenticationFilter extends UsernamePasswordAuthenticationFilter {
         // Key.hmacShaKeyFor: Key 객체를 생성하는 유틸리티 메서드
         Key secretKey = Keys.hmacShaKeyFor(env.getProperty("token.secret").getBytes(StandardCharsets.UTF_8));
 
+        long now = System.currentTimeMillis();
         String token = Jwts.builder()
                 // JWT 토큰의 subject를 설정
                 .setSubject(userDetails.getUserId())
+                // 토큰 id(jti)와 발행 시각(iat). Gateway는 이 값으로 로그아웃 등으로 폐기된 토큰을 거절한다. (TokenRevoker)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
                 // JWT 토큰의 만료 시간 설정(현재 시간 + token.expiration_time 값)
-                .setExpiration(new Date(System.currentTimeMillis() + Long.parseLong(env.getProperty("token.expiration_time"))))
+                .setExpiration(new Date(now + Long.parseLong(env.getProperty("token.expiration_time"))))
                 // JWT 토큰에 서명 추가
                 .signWith(secretKey, SignatureAlgorithm.HS512)
                 // JWT 토큰을 문자열로 변환
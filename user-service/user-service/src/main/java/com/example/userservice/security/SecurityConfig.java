@@ -37,6 +37,8 @@ public class SecurityConfig {
         AuthenticationManager authenticationManager = getAuthenticationFilter(http);
 
         http.csrf().disable();
+        // 세션을 사용하지 않으므로 기본 LogoutFilter 대신 UserController의 /logout에서 토큰을 폐기한다.
+        http.logout().disable();
         // 요청을 승인하는 방법 지정
         // permitAll(): 모든 사용자가 요청을 수행할 수 있도록 함
         // hasIpAddress(): 해당 IP 주소에서만 요청을 수행할 수 있도록 함
@@ -0,0 +1,36 @@
+package com.example.userservice.security;
+
+import lombok.Getter;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/*
+토큰이 폐기되었을 때 Spring Cloud Bus(RabbitMQ)를 통해 모든 apigateway-service 인스턴스에 전달되는 이벤트.
+tokenId가 있으면 해당 토큰(jti) 하나를, subject가 있으면 revokedAt 이전에 발행된 그 사용자의 모든 토큰을 폐기한다.
+Gateway에도 같은 이름과 필드를 가진 이벤트 클래스가 있어야 한다. (Bus는 클래스 이름으로 이벤트 타입을 구분)
+ */
+@Getter
+public class TokenRevokedEvent extends RemoteApplicationEvent {
+    // 폐기할 토큰의 jti
+    private String tokenId;
+    // 모든 토큰을 폐기할 사용자의 userId
+    private String subject;
+    // 폐기 시각(epoch millis). subject 폐기는 이 시각 이전에 발행(iat)된 토큰에 적용된다.
+    private long revokedAt;
+    // Gateway가 폐기 정보를 보관해야 하는 시각(epoch millis). 이후에는 폐기 대상 토큰이 모두 만료된다.
+    private long expiresAt;
+
+    // Bus가 메시지를 역직렬화할 때 사용하는 기본 생성자
+    @SuppressWarnings("unused")
+    private TokenRevokedEvent() {
+    }
+
+    public TokenRevokedEvent(Object source, String originService, Destination destination,
+                             String tokenId, String subject, long expiresAt) {
+        super(source, originService, destination);
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.revokedAt = System.currentTimeMillis();
+        this.expiresAt = expiresAt;
+    }
+}
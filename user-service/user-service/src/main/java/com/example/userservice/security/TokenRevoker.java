@@ -0,0 +1,54 @@
+package com.example.userservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/*
+발행한 JWT를 만료 전에 폐기하는 컴포넌트.
+토큰 검증은 Gateway에서만 하므로 폐기 정보는 DB에 저장하지 않고 Spring Cloud Bus로 모든 Gateway 인스턴스에 전달한다.
+Gateway는 폐기 정보를 메모리에 보관하고 요청마다 확인한다. (apigateway-service의 RevokedTokens)
+ */
+@Component
+@Slf4j
+public class TokenRevoker {
+    ApplicationEventPublisher publisher;
+    BusProperties busProperties;
+    Environment env;
+
+    // 이벤트를 전달할 대상 (모든 Gateway 인스턴스)
+    private final Destination destination;
+
+    @Autowired
+    public TokenRevoker(ApplicationEventPublisher publisher, BusProperties busProperties,
+                        Destination.Factory destinationFactory, Environment env) {
+        this.publisher = publisher;
+        this.busProperties = busProperties;
+        this.env = env;
+        this.destination = destinationFactory.getDestination("apigateway-service:**");
+    }
+
+    // 토큰 하나를 폐기 (로그아웃). expiresAt은 토큰의 만료 시각(epoch millis)
+    public void revokeToken(String tokenId, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis())
+            return;
+
+        publisher.publishEvent(new TokenRevokedEvent(this, busProperties.getId(), destination,
+                tokenId, null, expiresAt));
+        log.info("Token revoked: tokenId={}", tokenId);
+    }
+
+    // 지금까지 발행된 사용자의 모든 토큰을 폐기 (비밀번호 변경, 모든 기기에서 로그아웃 등)
+    // 지금까지 발행된 토큰은 늦어도 token.expiration_time 뒤에 만료되므로 그때까지 Gateway가 폐기 정보를 보관한다.
+    public void revokeAllTokens(String userId) {
+        long expiresAt = System.currentTimeMillis() + Long.parseLong(env.getProperty("token.expiration_time"));
+
+        publisher.publishEvent(new TokenRevokedEvent(this, busProperties.getId(), destination,
+                null, userId, expiresAt));
+        log.info("All tokens revoked: userId={}", userId);
+    }
+}
@@ -4,12 +4,19 @@ import com.example.userservice.dto.UserDto;
 import com.example.userservice.jpa.UserEntity;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 // Authentication에 인증하기 위한 자격으로 들어가려면 UserDetailService를 상속받아 구현해줘야함
 public interface UserService extends UserDetailsService {
     UserDto createUser(UserDto userDto);
 
     UserDto getUserByUserId(String userId);
+    UserDto getUserByUserId(String userId, boolean includeOrders);
+    List<UserDto> getUsersByUserIds(List<String> userIds, boolean includeOrders);
     Iterable<UserEntity> getUserByAll();
+    List<UserEntity> getUsersAfter(Long cursor, int size);
+    void streamAllUsers(Consumer<UserEntity> consumer);
 
     UserDto getUserDetailsByEmails(String username);
 }
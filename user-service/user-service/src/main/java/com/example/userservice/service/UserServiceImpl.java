@@ -1,19 +1,21 @@
 package com.example.userservice.service;
 
+import com.example.userservice.cache.UserEntityCache;
 import com.example.userservice.client.OrderServiceClient;
 import com.example.userservice.dto.UserDto;
 import com.example.userservice.jpa.UserEntity;
 import com.example.userservice.jpa.UserRepository;
+import com.example.userservice.resilience.RemoteCallGuard;
+import com.example.userservice.vo.RequestOrderLookup;
 import com.example.userservice.vo.ResponseOrder;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
-import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.User;
@@ -21,16 +23,25 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class UserServiceImpl implements UserService {
     UserRepository userRepository;
+    // findByUserId, findByEmail 조회 결과를 캐싱하는 로컬 캐시
+    UserEntityCache userEntityCache;
     BCryptPasswordEncoder passwordEncoder;
 
     Environment env;
@@ -39,28 +50,34 @@ public class UserServiceImpl implements UserService {
     // Feign Client 사용을 위한 의존성 주입
     OrderServiceClient orderServiceClient;
 
-    CircuitBreakerFactory circuitBreakerFactory;
+    // 원격 호출별 Bulkhead, TimeLimiter, Retry, CircuitBreaker 적용
+    RemoteCallGuard remoteCallGuard;
+
+    @PersistenceContext
+    EntityManager entityManager;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
+                           UserEntityCache userEntityCache,
                            BCryptPasswordEncoder passwordEncoder,
                            Environment env,
                            RestTemplate restTemplate,
                            OrderServiceClient orderServiceClient,
-                           CircuitBreakerFactory circuitBreakerFactory) {
+                           RemoteCallGuard remoteCallGuard) {
         this.userRepository = userRepository;
+        this.userEntityCache = userEntityCache;
         this.passwordEncoder = passwordEncoder;
         this.env = env;
         this.restTemplate = restTemplate;
         this.orderServiceClient = orderServiceClient;
-        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.remoteCallGuard = remoteCallGuard;
     }
 
     // UserDetailsService를 상속받아서 재정의 해줘야함
     // email을 가지고 사용자를 찾아오는 메서드
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        UserEntity userEntity = userRepository.findByEmail(username);
+        UserEntity userEntity = userEntityCache.findByEmail(username);
 
         // 해당하는 사용자가 없다면
         if(userEntity == null)
@@ -82,6 +99,7 @@ public class UserServiceImpl implements UserService {
         UserEntity userEntity = mapper.map(userDto, UserEntity.class);
         userEntity.setEncryptedPwd(passwordEncoder.encode(userDto.getPwd()));
 
+        // 다른 인스턴스에 남아있을 수 있는 캐시는 UserEntityCacheListener가 제거
         userRepository.save(userEntity);
 
         UserDto returnUserDto = mapper.map(userEntity, UserDto.class);
@@ -91,15 +109,23 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserDto getUserByUserId(String userId) {
+        return getUserByUserId(userId, true);
+    }
+
+    // includeOrders가 false이면 order-service를 호출하지 않는다. (주문 목록이 필요 없는 조회)
+    @Override
+    public UserDto getUserByUserId(String userId, boolean includeOrders) {
         // 사용자 정보를 나타내는 JPA 엔티티
         // JPA repository를 사용하여 사용자 ID를 기반으로 사용자 정보를 가져옴
-        UserEntity userEntity = userRepository.findByUserId(userId);
+        UserEntity userEntity = userEntityCache.findByUserId(userId);
         
         if (userEntity == null)
             throw new UsernameNotFoundException("User not found");
 
         // userEntity 객체를 UserDto 객체로 매핑하여 반환
         UserDto userDto = new ModelMapper().map(userEntity, UserDto.class);
+        if (!includeOrders)
+            return userDto;
 
 //        List<ResponseOrder> orders = new ArrayList<>();
 
@@ -142,9 +168,9 @@ public class UserServiceImpl implements UserService {
 //        List<ResponseOrder> orderList = orderServiceClient.getOrders(userId);
 
         /* CircuitBreaker */
-        CircuitBreaker circuitbreaker = circuitBreakerFactory.create("circuitbreaker");
+        // user.resilience.clients.order-service 프로파일 적용
         // 만약 호출 중에 예외가 발생하면, throwable -> new ArrayList<>() 함수를 호출하여 빈 주문 목록을 반환한다.
-        List<ResponseOrder> orderList = circuitbreaker.run(() -> orderServiceClient.getOrders(userId),
+        List<ResponseOrder> orderList = remoteCallGuard.run("order-service", () -> orderServiceClient.getOrders(userId),
                 throwable -> new ArrayList<>());
 
         userDto.setOrders(orderList);
@@ -152,14 +178,62 @@ public class UserServiceImpl implements UserService {
         return userDto;
     }
 
+    @Override
+    public List<UserDto> getUsersByUserIds(List<String> userIds, boolean includeOrders) {
+        // 캐시 + IN 쿼리 한 번으로 사용자 조회
+        Map<String, UserEntity> users = userEntityCache.findAllByUserIds(userIds);
+
+        // 주문 내역이 필요한 경우에도 사용자 수만큼이 아니라 한 번만 order-service를 호출
+        Map<String, List<ResponseOrder>> ordersByUserId = Collections.emptyMap();
+        if (includeOrders && !users.isEmpty()) {
+            ordersByUserId = remoteCallGuard.run("order-service-lookup",
+                    () -> orderServiceClient.getOrdersByUserIds(new RequestOrderLookup(new ArrayList<>(users.keySet()))),
+                    throwable -> Collections.emptyMap());
+        }
+
+        ModelMapper mapper = new ModelMapper();
+        List<UserDto> result = new ArrayList<>(users.size());
+        // 요청한 순서대로 반환하며, 존재하지 않는 사용자는 제외
+        for (String userId : userIds) {
+            UserEntity userEntity = users.get(userId);
+            if (userEntity == null)
+                continue;
+
+            UserDto userDto = mapper.map(userEntity, UserDto.class);
+            if (includeOrders)
+                userDto.setOrders(ordersByUserId.getOrDefault(userId, new ArrayList<>()));
+            result.add(userDto);
+        }
+
+        return result;
+    }
+
     @Override
     public Iterable<UserEntity> getUserByAll() {
         return userRepository.findAll();
     }
 
+    @Override
+    public List<UserEntity> getUsersAfter(Long cursor, int size) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(cursor == null ? 0L : cursor, PageRequest.of(0, size));
+    }
+
+    // 커서가 열려 있는 동안 트랜잭션을 유지해야 하므로 읽기 전용 트랜잭션으로 실행
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserEntity> consumer) {
+        try (Stream<UserEntity> users = userRepository.streamAllByOrderByIdAsc()) {
+            users.forEach(userEntity -> {
+                consumer.accept(userEntity);
+                // 처리한 엔티티를 영속성 컨텍스트에서 분리하여 사용자 수와 관계없이 메모리 사용량을 일정하게 유지
+                entityManager.detach(userEntity);
+            });
+        }
+    }
+
     @Override
     public UserDto getUserDetailsByEmails(String email) {
-        UserEntity userEntity = userRepository.findByEmail(email);
+        UserEntity userEntity = userEntityCache.findByEmail(email);
 
         if (userEntity == null)
             throw new UsernameNotFoundException(email);
@@ -0,0 +1,57 @@
+package com.example.userservice.vo;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/*
+?fields= 파라미터로 응답에 포함할 속성만 직렬화하는 sparse fieldset
+응답 VO에 @JsonFilter(FILTER 이름)를 붙이고, 컨트롤러에서 project()로 감싸서 반환한다.
+ - fields가 없으면 모든 속성을 직렬화하며, 존재하지 않는 속성 이름은 무시한다.
+ - 필터를 지정하지 않은 직렬화(NDJSON 스트리밍, 일괄 조회 등)는 defaultFilters()에 의해 모든 속성을 직렬화한다.
+이 클래스는 user-service, order-service, catalog-service의 vo 패키지에 복사되어 있다. (서비스 사이에 공유 모듈이 없음)
+서비스마다 다른 것은 필터 이름 상수(와 user-service의 includes)뿐이므로, 수정할 때는 세 복사본을 함께 수정한다.
+ */
+public final class FieldProjection {
+    // ResponseUser의 @JsonFilter 이름
+    public static final String USER_FILTER = "userFields";
+
+    private FieldProjection() {
+    }
+
+    // "email, name,orders" -> [email, name, orders]. 파라미터가 없거나 비어 있으면 null (모든 속성)
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.trim().isEmpty())
+            return null;
+
+        Set<String> result = new LinkedHashSet<>();
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(result::add);
+        return result;
+    }
+
+    // 요청한 속성에 포함되는지 여부 (fields가 없으면 항상 포함)
+    public static boolean includes(Set<String> fields, String property) {
+        return fields == null || fields.contains(property);
+    }
+
+    // filterId 필터가 붙은 객체는 fields에 있는 속성만 직렬화하도록 body를 감싼다.
+    public static MappingJacksonValue project(Object body, String filterId, Set<String> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(defaultFilters().addFilter(filterId, fields == null
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        return value;
+    }
+
+    // ObjectMapper의 기본 필터 (등록되지 않은 필터 이름은 모든 속성을 직렬화)
+    public static SimpleFilterProvider defaultFilters() {
+        return new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+    }
+}
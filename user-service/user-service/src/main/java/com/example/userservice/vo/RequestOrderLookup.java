@@ -0,0 +1,15 @@
+package com.example.userservice.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// order-service에 여러 사용자의 주문 내역을 한 번에 요청하기 위한 객체
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestOrderLookup {
+    private List<String> userIds;
+}
@@ -0,0 +1,16 @@
+package com.example.userservice.vo;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+// 여러 사용자를 한 번에 조회하기 위한 요청 (POST /users/lookup)
+@Data
+public class RequestUserLookup {
+    @NotEmpty(message = "User ids cannot be empty")
+    private List<String> userIds;
+
+    // true인 경우에만 order-service에서 주문 내역을 함께 가져옴
+    private boolean includeOrders;
+}
@@ -1,5 +1,6 @@
 package com.example.userservice.vo;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
@@ -8,6 +9,8 @@ import java.util.List;
 @Data
 // json 데이터 중에서 NULL 값이 있는 것은 버리고 그렇지 않은 것만 전달 할 수 있도록 해줌
 @JsonInclude(JsonInclude.Include.NON_NULL)
+// GET /users/{userId}?fields= 에서 요청한 속성만 직렬화 (FieldProjection)
+@JsonFilter(FieldProjection.USER_FILTER)
 public class ResponseUser {
     private String email;
     private String name;